@@ -0,0 +1,26 @@
+package com.poxju.proksi.api.response;
+
+import java.time.LocalDateTime;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class NoteImportResponse {
+
+    private Long id;
+    private String format;
+    private String status;
+    private long rowsRead;
+    private long notesImported;
+    private long rowsRejected;
+    private String lastError;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+    private LocalDateTime finishedAt;
+}
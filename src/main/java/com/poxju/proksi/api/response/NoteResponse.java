@@ -0,0 +1,23 @@
+package com.poxju.proksi.api.response;
+
+import java.time.LocalDateTime;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class NoteResponse {
+
+    private Long id;
+    private String title;
+    private String content;
+    private String summary;
+    private String status;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+}
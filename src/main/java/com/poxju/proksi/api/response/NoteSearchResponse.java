@@ -0,0 +1,21 @@
+package com.poxju.proksi.api.response;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class NoteSearchResponse {
+
+    private String query;
+    private int page;
+    private int size;
+    private boolean hasNext;
+    private List<NoteSearchResult> results;
+}
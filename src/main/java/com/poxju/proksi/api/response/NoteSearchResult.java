@@ -0,0 +1,24 @@
+package com.poxju.proksi.api.response;
+
+import java.time.LocalDateTime;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class NoteSearchResult {
+
+    private Long id;
+    private String title;
+    private String status;
+    private LocalDateTime createdAt;
+    private String ownerUsername;
+    private double rank;
+    // HTML-escaped excerpt; matched terms are wrapped in <mark>
+    private String headline;
+}
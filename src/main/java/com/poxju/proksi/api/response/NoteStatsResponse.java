@@ -0,0 +1,30 @@
+package com.poxju.proksi.api.response;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class NoteStatsResponse {
+
+    private long totalNotes;
+    // Notes waiting for a summary
+    private long queued;
+    private long processing;
+    private long done;
+    private long failed;
+    // Over the last day: created, summarized and failed notes, and done / (done + failed)
+    private long createdLastDay;
+    private long completedLastDay;
+    private long failedLastDay;
+    private Double successRateLastDay;
+    private List<UserNoteStats> users;
+    // Hourly, oldest first
+    private List<NoteThroughput> throughput;
+}
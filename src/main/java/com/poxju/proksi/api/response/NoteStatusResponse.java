@@ -0,0 +1,19 @@
+package com.poxju.proksi.api.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class NoteStatusResponse {
+
+    private Long id;
+    private String status;
+    // The note's version after the change: higher for every later change of the note, on
+    // any node and across restarts, so clients can drop updates that arrive out of order
+    private long version;
+}
@@ -0,0 +1,20 @@
+package com.poxju.proksi.api.response;
+
+import java.time.LocalDateTime;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class NoteThroughput {
+
+    private LocalDateTime bucketStart;
+    private long created;
+    private long completed;
+    private long failed;
+}
@@ -0,0 +1,22 @@
+package com.poxju.proksi.api.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class UserNoteStats {
+
+    private Long userId;
+    private String username;
+    private String email;
+    private long total;
+    private long queued;
+    private long processing;
+    private long done;
+    private long failed;
+}
@@ -1,5 +1,6 @@
 package com.poxju.proksi.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -12,6 +13,9 @@ import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
 import com.poxju.proksi.repository.UserRepository;
+import com.poxju.proksi.security.BoundedPasswordEncoder;
+
+import io.micrometer.core.instrument.MeterRegistry;
 
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
@@ -33,12 +37,19 @@ public class ApplicationConfiguration {
         };
     }
 
+    /**
+     * BCrypt runs on its own bounded pool (auth.hashing.*) rather than on request threads.
+     */
     @Bean
-    public PasswordEncoder passwordEncoder() {
+    public PasswordEncoder passwordEncoder(
+            MeterRegistry meterRegistry,
+            @Value("${auth.hashing.threads:1}") int threads,
+            @Value("${auth.hashing.queue-capacity:16}") int queueCapacity,
+            @Value("${auth.hashing.retry-after-seconds:2}") long retryAfterSeconds) {
         DelegatingPasswordEncoder delegatingPasswordEncoder =
             (DelegatingPasswordEncoder) PasswordEncoderFactories.createDelegatingPasswordEncoder();
             delegatingPasswordEncoder.setDefaultPasswordEncoderForMatches(new BCryptPasswordEncoder());
-        return delegatingPasswordEncoder;
+        return new BoundedPasswordEncoder(delegatingPasswordEncoder, meterRegistry, threads, queueCapacity, retryAfterSeconds);
     }
 
     @Bean
@@ -3,8 +3,11 @@ package com.poxju.proksi.config;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 import java.util.concurrent.Executor;
 import java.util.concurrent.ThreadPoolExecutor;
@@ -12,6 +15,11 @@ import java.util.concurrent.ThreadPoolExecutor;
 /**
  * Configuration for async task execution.
  * Prevents unbounded thread creation and provides proper resource management.
+ *
+ * With {@code summary.executor.mode=virtual} summarization tasks run on virtual threads
+ * instead of the bounded platform pool: a task parked on database I/O no longer holds an
+ * OS thread, so hundreds of notes can be in flight on a single vCPU. Concurrency is then
+ * bounded by the job worker slots and the outstanding-request limit, not by threads.
  */
 @Configuration
 @EnableAsync
@@ -29,8 +37,19 @@ public class AsyncConfiguration {
     @Value("${spring.task.execution.thread-name-prefix:async-}")
     private String threadNamePrefix;
 
+    @Value("${summary.executor.mode:platform}")
+    private String executorMode;
+
     @Bean(name = "taskExecutor")
     public Executor taskExecutor() {
+        if (isVirtualMode()) {
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor(threadNamePrefix);
+            executor.setVirtualThreads(true);
+            // Wait for running tasks on shutdown, matching the platform pool
+            executor.setTaskTerminationTimeout(30_000);
+            return executor;
+        }
+
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
         executor.setCorePoolSize(corePoolSize);
         executor.setMaxPoolSize(maxPoolSize);
@@ -52,4 +71,50 @@ public class AsyncConfiguration {
         executor.initialize();
         return executor;
     }
+
+    /**
+     * Executor for the summary cache's table reads and writes. Small and rejecting rather
+     * than caller-runs: a lookup that cannot be queued counts as a miss and a write is
+     * skipped, so the HTTP and batcher threads calling into the cache never wait on the
+     * database.
+     */
+    @Bean(name = "summaryCacheExecutor")
+    public Executor summaryCacheExecutor(
+            @Value("${summary.cache.executor.threads:2}") int threads,
+            @Value("${summary.cache.executor.queue-capacity:100}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("summary-cache-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.setAllowCoreThreadTimeOut(true);
+        executor.setKeepAliveSeconds(60);
+        // Let queued cache writes finish on shutdown
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(10);
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Executor for async MVC handlers such as note exports, which write the response on a
+     * thread of their own for as long as the download takes. Virtual threads, as these mostly
+     * wait on the client and the database; exports limit their own concurrency.
+     */
+    @Bean
+    public WebMvcConfigurer asyncRequestConfigurer() {
+        return new WebMvcConfigurer() {
+            @Override
+            public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+                SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("mvc-async-");
+                executor.setVirtualThreads(true);
+                configurer.setTaskExecutor(executor);
+            }
+        };
+    }
+
+    private boolean isVirtualMode() {
+        return "virtual".equalsIgnoreCase(executorMode);
+    }
 }
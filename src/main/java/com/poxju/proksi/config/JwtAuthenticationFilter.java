@@ -1,28 +1,68 @@
 package com.poxju.proksi.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
+import com.poxju.proksi.model.User;
 import com.poxju.proksi.service.JwtService;
+import com.poxju.proksi.service.TokenRevocations;
+import com.poxju.proksi.service.TokenVersions;
+import com.poxju.proksi.service.UserPrincipalCache;
 
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import lombok.RequiredArgsConstructor;
 
+import java.util.Date;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Authenticates requests carrying a JWT in the Authorization header or the jwtToken cookie.
+ * Token claims and users come from caches (see {@link JwtService} and {@link UserPrincipalCache}),
+ * so a request usually costs no signature check and no query. The time spent here is
+ * recorded as {@code auth.filter}, tagged with the outcome.
+ *
+ * With {@code auth.stateless=true} a token that carries the user's role is trusted as is:
+ * the authentication is built from its claims without loading the user. Either way a token
+ * is rejected once its version is behind the user's (see {@link TokenVersions}), or once
+ * it has been revoked on its own, e.g. by logging out (see {@link TokenRevocations}).
+ */
 @Component
-@RequiredArgsConstructor
 public class JwtAuthenticationFilter extends OncePerRequestFilter{
     
     private final JwtService jwtService;
-    private final UserDetailsService userDetailsService;
+    private final UserPrincipalCache userPrincipalCache;
+    private final TokenVersions tokenVersions;
+    private final TokenRevocations tokenRevocations;
+    private final MeterRegistry meterRegistry;
+    private final boolean stateless;
+
+    public JwtAuthenticationFilter(
+            JwtService jwtService,
+            UserPrincipalCache userPrincipalCache,
+            TokenVersions tokenVersions,
+            TokenRevocations tokenRevocations,
+            MeterRegistry meterRegistry,
+            @Value("${auth.stateless:false}") boolean stateless) {
+        this.jwtService = jwtService;
+        this.userPrincipalCache = userPrincipalCache;
+        this.tokenVersions = tokenVersions;
+        this.tokenRevocations = tokenRevocations;
+        this.meterRegistry = meterRegistry;
+        this.stateless = stateless;
+    }
 
     @Override
     protected void doFilterInternal(
@@ -30,39 +70,92 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter{
         @NonNull HttpServletResponse response,
         @NonNull FilterChain filterChain
         ) throws java.io.IOException, ServletException {  
-        final String authHeader = request.getHeader("Authorization");
-        final String jwtFromCookie = getJwtFromCookie(request);
-        final String jwt;
+        final String jwt = resolveToken(request);
         final String userEmail;
         
-        if (authHeader != null && authHeader.startsWith("Bearer ")) {
-            jwt = authHeader.substring(7);
-        } else if (jwtFromCookie != null) {
-            jwt = jwtFromCookie;
-        } else {
+        if (jwt == null) {
             filterChain.doFilter(request, response);
             return;
         }
         
-        userEmail = jwtService.extractUsername(jwt);
-        if (userEmail != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = this.userDetailsService.loadUserByUsername(userEmail);
-            if (jwtService.isTokenValid(jwt, userDetails)){
-                UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
-                    userDetails,
-                    null, 
-                    userDetails.getAuthorities()
-                );
-                authToken.setDetails(
-                    new WebAuthenticationDetailsSource().buildDetails(request)
-                );
-                SecurityContextHolder.getContext().setAuthentication(authToken);
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
+        try {
+            Claims claims = jwtService.extractClaim(jwt, Function.identity());
+            userEmail = claims.getSubject();
+            if (userEmail == null) {
+                outcome = "rejected";
+            } else if (SecurityContextHolder.getContext().getAuthentication() != null) {
+                outcome = "session";
+            } else if (!isVersionCurrent(claims)
+                    || (claims.getId() != null && tokenRevocations.isRevoked(claims.getId()))) {
+                outcome = "revoked";
+            } else if (stateless && claims.get(JwtService.ROLE_CLAIM) != null) {
+                if (claims.getExpiration() != null && claims.getExpiration().after(new Date())) {
+                    authenticate(request, principalFrom(claims));
+                    outcome = "authenticated";
+                } else {
+                    outcome = "rejected";
+                }
+            } else {
+                User user = userPrincipalCache.findByEmail(userEmail).orElse(null);
+                if (user != null && jwtService.isTokenValid(jwt, user)
+                        && tokenVersion(claims) >= user.getTokenVersion()){
+                    authenticate(request, user);
+                    outcome = "authenticated";
+                } else {
+                    outcome = "rejected";
+                }
             }
+        } finally {
+            sample.stop(meterRegistry.timer("auth.filter", "outcome", outcome));
         }
         filterChain.doFilter(request, response);
     }
     
-    private String getJwtFromCookie(HttpServletRequest request) {
+    private void authenticate(HttpServletRequest request, UserDetails principal) {
+        UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
+            principal,
+            null, 
+            principal.getAuthorities()
+        );
+        authToken.setDetails(
+            new WebAuthenticationDetailsSource().buildDetails(request)
+        );
+        SecurityContextHolder.getContext().setAuthentication(authToken);
+    }
+
+    // Tokens issued before token versions existed carry none and count as version 0
+    private boolean isVersionCurrent(Claims claims) {
+        Long userId = claims.get(JwtService.USER_ID_CLAIM, Long.class);
+        return userId == null || tokenVersions.isCurrent(userId, tokenVersion(claims));
+    }
+
+    private static long tokenVersion(Claims claims) {
+        Long version = claims.get(JwtService.TOKEN_VERSION_CLAIM, Long.class);
+        return version != null ? version : 0;
+    }
+
+    private static UserDetails principalFrom(Claims claims) {
+        return org.springframework.security.core.userdetails.User.withUsername(claims.getSubject())
+                .password("")
+                .authorities(List.of(new SimpleGrantedAuthority(claims.get(JwtService.ROLE_CLAIM, String.class))))
+                .build();
+    }
+
+    /**
+     * The JWT of the request: the Bearer token of the Authorization header, else the
+     * jwtToken cookie, else null.
+     */
+    public static String resolveToken(HttpServletRequest request) {
+        String authHeader = request.getHeader("Authorization");
+        if (authHeader != null && authHeader.startsWith("Bearer ")) {
+            return authHeader.substring(7);
+        }
+        return getJwtFromCookie(request);
+    }
+
+    private static String getJwtFromCookie(HttpServletRequest request) {
         if (request.getCookies() != null) {
             for (jakarta.servlet.http.Cookie cookie : request.getCookies()) {
                 if ("jwtToken".equals(cookie.getName())) {
@@ -0,0 +1,113 @@
+package com.poxju.proksi.config;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Instant;
+
+/**
+ * The read replica's connection pool and whether it may serve reads. A periodic check
+ * measures how far replay trails the primary; the replica is taken out of rotation while it
+ * lags more than the configured maximum or cannot be reached, and put back once a check
+ * succeeds again. Until the first check passes all reads go to the primary.
+ *
+ * The pool is deliberately not exposed as a {@code DataSource} bean, so the database health
+ * check and other auto-configuration never depend on the replica being up.
+ */
+public class ReadReplica implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReadReplica.class);
+
+    // A standby that has replayed everything it received is caught up, however old its last
+    // replayed transaction; otherwise the age of that transaction is how far it trails
+    private static final String LAG_QUERY = """
+            SELECT CASE WHEN NOT pg_is_in_recovery() OR pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0
+                        ELSE (EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) * 1000)::bigint
+                   END
+            """;
+
+    public record ReplicaState(boolean available, Long lagMs, String error, Instant checkedAt) {}
+
+    private final HikariDataSource dataSource;
+    private final long maxLagMs;
+    private volatile ReplicaState state = new ReplicaState(false, null, "Not checked yet", null);
+
+    public ReadReplica(HikariDataSource dataSource, long maxLagMs) {
+        this.dataSource = dataSource;
+        this.maxLagMs = maxLagMs;
+    }
+
+    public HikariDataSource getDataSource() {
+        return dataSource;
+    }
+
+    public boolean isAvailable() {
+        return state.available();
+    }
+
+    public ReplicaState getState() {
+        return state;
+    }
+
+    public long getMaxLagMs() {
+        return maxLagMs;
+    }
+
+    /**
+     * Borrows a replica connection; a failure takes the replica out of rotation until the
+     * next successful check.
+     */
+    public Connection getConnection() throws SQLException {
+        try {
+            return dataSource.getConnection();
+        } catch (SQLException | RuntimeException e) {
+            markUnavailable(e.getMessage());
+            throw e;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${spring.datasource.replica.check-interval-ms:5000}")
+    public void checkLag() {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(LAG_QUERY)) {
+            rs.next();
+            long lagMs = rs.getLong(1);
+            if (rs.wasNull()) {
+                update(new ReplicaState(false, null, "Replication lag unknown", Instant.now()));
+            } else if (lagMs > maxLagMs) {
+                update(new ReplicaState(false, lagMs, "Replication lag above " + maxLagMs + " ms", Instant.now()));
+            } else {
+                update(new ReplicaState(true, Math.max(0, lagMs), null, Instant.now()));
+            }
+        } catch (Exception e) {
+            markUnavailable(e.getMessage());
+        }
+    }
+
+    @Override
+    public void close() {
+        dataSource.close();
+    }
+
+    private void markUnavailable(String error) {
+        update(new ReplicaState(false, null, error, Instant.now()));
+    }
+
+    private void update(ReplicaState next) {
+        ReplicaState previous = state;
+        state = next;
+        if (previous.available() && !next.available()) {
+            logger.warn("Read replica out of rotation, reads go to the primary: {}", next.error());
+        } else if (!previous.available() && next.available()) {
+            logger.info("Read replica in rotation, lag {} ms", next.lagMs());
+        }
+    }
+}
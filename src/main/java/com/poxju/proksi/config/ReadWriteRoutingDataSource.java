@@ -0,0 +1,53 @@
+package com.poxju.proksi.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+
+/**
+ * Sends connections of read-only transactions to the read replica and everything else to
+ * the primary. The route is decided when the connection is fetched, so this must sit behind
+ * a {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}: the proxy
+ * defers the fetch to the first statement, after the transaction has been marked read-only.
+ * When the replica is out of rotation, or handing out a connection fails, reads fall back to
+ * the primary.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    public enum Route { PRIMARY, REPLICA }
+
+    private final DataSource primary;
+    private final ReadReplica replica;
+
+    public ReadWriteRoutingDataSource(DataSource primary, ReadReplica replica) {
+        this.primary = primary;
+        this.replica = replica;
+        setTargetDataSources(Map.of(Route.PRIMARY, primary, Route.REPLICA, replica.getDataSource()));
+        setDefaultTargetDataSource(primary);
+        setLenientFallback(false);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return TransactionSynchronizationManager.isCurrentTransactionReadOnly() && replica.isAvailable()
+                ? Route.REPLICA
+                : Route.PRIMARY;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (determineCurrentLookupKey() == Route.REPLICA) {
+            try {
+                return replica.getConnection();
+            } catch (SQLException | RuntimeException e) {
+                // Out of rotation now; this read goes to the primary instead
+            }
+        }
+        return primary.getConnection();
+    }
+}
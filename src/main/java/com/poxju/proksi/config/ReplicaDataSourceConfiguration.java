@@ -0,0 +1,80 @@
+package com.poxju.proksi.config;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.flyway.FlywayDataSource;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+import javax.sql.DataSource;
+
+/**
+ * Splits reads from writes when {@code spring.datasource.replica.url} is set. The primary
+ * pool is configured from the usual {@code spring.datasource.*} properties, the replica pool
+ * from {@code spring.datasource.replica.*} (credentials default to the primary's). The
+ * application's {@code DataSource} routes read-only transactions to the replica, while
+ * Flyway and all writes use the primary. Without a replica URL the auto-configured single
+ * pool is used unchanged.
+ *
+ * The primary pool is a non-default candidate, so JPA and JdbcTemplate get the routing
+ * {@code DataSource}; the replica pool lives in {@link ReadReplica} and is not a bean.
+ */
+@Configuration
+@ConditionalOnProperty(name = "spring.datasource.replica.url")
+public class ReplicaDataSourceConfiguration {
+
+    @Bean(defaultCandidate = false)
+    @Qualifier("primaryDataSource")
+    @FlywayDataSource
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    public ReadReplica readReplica(
+            DataSourceProperties properties,
+            Environment environment,
+            MeterRegistry meterRegistry,
+            @Value("${spring.datasource.replica.url}") String url,
+            @Value("${spring.datasource.replica.username:}") String username,
+            @Value("${spring.datasource.replica.password:}") String password,
+            @Value("${spring.datasource.replica.max-lag-ms:5000}") long maxLagMs) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName("replica");
+        dataSource.setJdbcUrl(url);
+        dataSource.setDriverClassName(properties.determineDriverClassName());
+        dataSource.setUsername(username.isEmpty() ? properties.determineUsername() : username);
+        dataSource.setPassword(password.isEmpty() ? properties.determinePassword() : password);
+        dataSource.setReadOnly(true);
+        // Fail over to the primary quickly instead of queueing reads behind a dead replica
+        dataSource.setConnectionTimeout(2000);
+        Binder.get(environment).bind("spring.datasource.replica.hikari", Bindable.ofInstance(dataSource));
+        dataSource.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+        return new ReadReplica(dataSource, maxLagMs);
+    }
+
+    @Bean
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primary, ReadReplica readReplica) {
+        return new LazyConnectionDataSourceProxy(new ReadWriteRoutingDataSource(primary, readReplica));
+    }
+
+    @Bean
+    public ReplicaHealthIndicator replicaHealthIndicator(ReadReplica readReplica) {
+        return new ReplicaHealthIndicator(readReplica);
+    }
+}
@@ -0,0 +1,39 @@
+package com.poxju.proksi.config;
+
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.actuate.health.Status;
+
+/**
+ * Reports the read replica's replication lag next to {@link DatabaseHealthIndicator}.
+ * A lagging or unreachable replica is reported as DEGRADED rather than DOWN: reads fall back
+ * to the primary, so the application keeps serving and the overall status is unaffected.
+ */
+public class ReplicaHealthIndicator implements HealthIndicator {
+
+    private static final Status DEGRADED = new Status("DEGRADED", "Reads are served by the primary");
+
+    private final ReadReplica replica;
+
+    public ReplicaHealthIndicator(ReadReplica replica) {
+        this.replica = replica;
+    }
+
+    @Override
+    public Health health() {
+        ReadReplica.ReplicaState state = replica.getState();
+        Health.Builder builder = state.available() ? Health.up() : Health.status(DEGRADED);
+        builder.withDetail("database", "PostgreSQL replica")
+                .withDetail("maxLagMs", replica.getMaxLagMs());
+        if (state.lagMs() != null) {
+            builder.withDetail("lagMs", state.lagMs());
+        }
+        if (state.error() != null) {
+            builder.withDetail("error", state.error());
+        }
+        if (state.checkedAt() != null) {
+            builder.withDetail("checkedAt", state.checkedAt().toString());
+        }
+        return builder.build();
+    }
+}
@@ -1,10 +1,14 @@
 package com.poxju.proksi.controller;
 
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
 
 import com.poxju.proksi.api.request.AuthenticationRequest;
 import com.poxju.proksi.api.request.RegisterRequest;
@@ -34,4 +38,16 @@ public class AuthenticationController {
         return ResponseEntity.ok(service.authenticate(request));
 
     }
+
+    /**
+     * Revokes all tokens issued to the caller, including the one used for this request.
+     */
+    @PostMapping("/revoke")
+    public ResponseEntity<Void> revoke(@AuthenticationPrincipal UserDetails userDetails) {
+        if (userDetails == null) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED);
+        }
+        service.revokeTokens(userDetails.getUsername());
+        return ResponseEntity.noContent().build();
+    }
 }
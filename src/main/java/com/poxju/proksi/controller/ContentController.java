@@ -10,15 +10,16 @@ import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
 
 import com.poxju.proksi.api.request.RegisterRequest;
 import com.poxju.proksi.service.AuthenticationService;
-import com.poxju.proksi.service.AISummaryService;
-import com.poxju.proksi.model.Note;
+import com.poxju.proksi.service.NoteAdmission;
+import com.poxju.proksi.service.NoteListPage;
+import com.poxju.proksi.service.NoteService;
+import com.poxju.proksi.service.NoteStatsService;
+import com.poxju.proksi.service.UserPrincipalCache;
 import com.poxju.proksi.model.Role;
 import com.poxju.proksi.model.User;
-import com.poxju.proksi.repository.NoteRepository;
 import com.poxju.proksi.repository.UserRepository;
 
 import lombok.RequiredArgsConstructor;
@@ -32,42 +33,39 @@ public class ContentController {
     private static final Logger logger = LoggerFactory.getLogger(ContentController.class);
 
     private final AuthenticationService authenticationService;
-    private final AISummaryService aiSummaryService;
-    private final NoteRepository noteRepository;
+    private final NoteService noteService;
+    private final NoteAdmission noteAdmission;
+    private final NoteStatsService noteStatsService;
     private final UserRepository userRepository;
+    private final UserPrincipalCache userPrincipalCache;
 
     @GetMapping("/")
     public String home(
             Model model, 
             @AuthenticationPrincipal UserDetails userDetails,
-            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) String before,
             @RequestParam(defaultValue = "20") int size) {
         
         if (userDetails != null) {
-            User currentUser = userRepository.findByEmail(userDetails.getUsername()).orElse(null);
+            User currentUser = userPrincipalCache.findByEmail(userDetails.getUsername()).orElse(null);
             
             if (currentUser != null) {
                 model.addAttribute("username", currentUser.getUsernameField()); 
-                Pageable pageable = PageRequest.of(page, size);
+                NoteListPage notesPage = noteService.listNotes(currentUser, after, before, size);
+                model.addAttribute("notes", notesPage.notes());
+                model.addAttribute("newerCursor", notesPage.newerCursor());
+                model.addAttribute("olderCursor", notesPage.olderCursor());
+                model.addAttribute("pageSize", size);
                 
                 if (currentUser.getRole() == Role.ADMIN) {
-                    Page<Note> notesPage = noteRepository.findAll(pageable);
-                    Page<User> usersPage = userRepository.findAll(pageable);
+                    Page<User> usersPage = userRepository.findAll(PageRequest.of(0, size));
                     
-                    model.addAttribute("notes", notesPage.getContent());
                     model.addAttribute("users", usersPage.getContent());
-                    model.addAttribute("currentPage", page);
-                    model.addAttribute("totalPages", notesPage.getTotalPages());
-                    model.addAttribute("totalNotes", notesPage.getTotalElements());
+                    model.addAttribute("stats", noteStatsService.dashboard());
                     model.addAttribute("isAdmin", true);
                     return "admin-home";
                 } else {
-                    Page<Note> notesPage = noteRepository.findByUserId(currentUser.getId(), pageable);
-                    
-                    model.addAttribute("notes", notesPage.getContent());
-                    model.addAttribute("currentPage", page);
-                    model.addAttribute("totalPages", notesPage.getTotalPages());
-                    model.addAttribute("totalNotes", notesPage.getTotalElements());
                     model.addAttribute("isAdmin", false);
                     return "home";
                 }
@@ -81,24 +79,13 @@ public class ContentController {
         logger.debug("createNote called with title: {}", title);
         
         if (userDetails != null) {
-            User currentUser = userRepository.findByEmail(userDetails.getUsername()).orElse(null);
+            User currentUser = userPrincipalCache.findByEmail(userDetails.getUsername()).orElse(null);
             
             if (currentUser != null) {
-                Note note = new Note();
-                note.setTitle(title);
-                note.setContent(content);
-                note.setUser(currentUser);
-                note.setStatus("queued"); 
-                
-                Note savedNote = noteRepository.save(note);
-                logger.info("Note saved with ID: {} by user: {}", savedNote.getId(), currentUser.getEmail());
-                
-                // Fire and forget async processing - don't wait for completion
-                aiSummaryService.generateSummaryAsync(savedNote.getId())
-                    .exceptionally(ex -> {
-                        logger.error("Async summary generation failed for note {}", savedNote.getId(), ex);
-                        return null;
-                    });
+                // Rejected with 429 and Retry-After when the user is over their rate limit
+                noteAdmission.acquire(currentUser);
+                // Persist the note and its summary job; workers pick it up from the queue
+                noteService.createNote(currentUser, title, content);
             }
         }
         return "redirect:/";
@@ -0,0 +1,145 @@
+package com.poxju.proksi.controller;
+
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.poxju.proksi.api.response.NoteImportResponse;
+import com.poxju.proksi.api.response.NoteResponse;
+import com.poxju.proksi.api.response.NoteSearchResponse;
+import com.poxju.proksi.api.response.NoteStatsResponse;
+import com.poxju.proksi.model.Role;
+import com.poxju.proksi.model.User;
+import com.poxju.proksi.service.NoteEventPublisher;
+import com.poxju.proksi.service.NoteExportService;
+import com.poxju.proksi.service.NoteImportService;
+import com.poxju.proksi.service.NoteService;
+import com.poxju.proksi.service.NoteStatsService;
+import com.poxju.proksi.service.UserPrincipalCache;
+
+import lombok.RequiredArgsConstructor;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.time.LocalDate;
+
+@RestController
+@RequestMapping("/api/v1/notes")
+@RequiredArgsConstructor
+public class NoteController {
+
+    private final NoteService noteService;
+    private final NoteEventPublisher noteEventPublisher;
+    private final NoteImportService noteImportService;
+    private final NoteExportService noteExportService;
+    private final NoteStatsService noteStatsService;
+    private final UserPrincipalCache userPrincipalCache;
+
+    /**
+     * Streams status and summary updates for the caller's notes, or for all notes for admins.
+     */
+    @GetMapping(path = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter events(@AuthenticationPrincipal UserDetails userDetails) {
+        return noteEventPublisher.subscribe(currentUser(userDetails));
+    }
+
+    /**
+     * Searches the caller's notes, or all notes for admins, by title, content and summary.
+     * Accepts web-search syntax: quoted phrases, "or" and a leading "-" to exclude a word.
+     */
+    @GetMapping("/search")
+    public NoteSearchResponse search(
+            @RequestParam("q") String query,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size,
+            @AuthenticationPrincipal UserDetails userDetails) {
+        return noteService.search(currentUser(userDetails), query, page, size);
+    }
+
+    /**
+     * Note counts per status and owner, and throughput over the last day. Admins only.
+     */
+    @GetMapping("/stats")
+    public NoteStatsResponse stats(@AuthenticationPrincipal UserDetails userDetails) {
+        if (currentUser(userDetails).getRole() != Role.ADMIN) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN);
+        }
+        return noteStatsService.dashboard();
+    }
+
+    /**
+     * Returns a note with its full content and summary. The list pages only carry previews.
+     * Notes of other users are reported as not found unless the caller is an admin.
+     */
+    @GetMapping("/{id}")
+    public NoteResponse getNote(@PathVariable Long id, @AuthenticationPrincipal UserDetails userDetails) {
+        return noteService.findVisibleNote(currentUser(userDetails), id)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+    }
+
+    /**
+     * Imports notes in bulk from an NDJSON ({@code application/x-ndjson}) or CSV
+     * ({@code text/csv}) request body. Responds 202 once the upload is received; the
+     * import continues in the background and its progress is at the Location URL.
+     */
+    @PostMapping(path = "/imports", consumes = { "application/x-ndjson", "text/csv" })
+    public ResponseEntity<NoteImportResponse> importNotes(
+            @RequestHeader("Content-Type") MediaType contentType,
+            InputStream body,
+            @AuthenticationPrincipal UserDetails userDetails) throws IOException {
+        String format = MediaType.valueOf("text/csv").includes(contentType) ? "csv" : "ndjson";
+        NoteImportResponse started = noteImportService.submit(currentUser(userDetails), format, body);
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/v1/notes/imports/" + started.getId()))
+                .body(started);
+    }
+
+    @GetMapping("/imports/{id}")
+    public NoteImportResponse getImport(@PathVariable Long id, @AuthenticationPrincipal UserDetails userDetails) {
+        return noteImportService.findVisibleImport(currentUser(userDetails), id)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+    }
+
+    /**
+     * Downloads all of the caller's notes, oldest first, with their full content: as NDJSON
+     * ({@code format=ndjson}, one note per line) or as a ZIP of markdown files ({@code format=zip}).
+     * The response is written while the notes are read. Responds 429 if too many exports are running.
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportNotes(
+            @RequestParam(defaultValue = "ndjson") String format,
+            @AuthenticationPrincipal UserDetails userDetails) {
+        if (!"ndjson".equals(format) && !"zip".equals(format)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unsupported export format: " + format);
+        }
+        User user = currentUser(userDetails);
+        String filename = "notes-" + LocalDate.now() + "." + format;
+        return ResponseEntity.ok()
+                .contentType("zip".equals(format) ? MediaType.valueOf("application/zip") : MediaType.valueOf("application/x-ndjson"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(filename).build().toString())
+                .body(noteExportService.export(user, format));
+    }
+
+    private User currentUser(UserDetails userDetails) {
+        if (userDetails == null) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED);
+        }
+        return userPrincipalCache.findByEmail(userDetails.getUsername())
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED));
+    }
+}
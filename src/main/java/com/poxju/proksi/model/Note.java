@@ -8,24 +8,38 @@ import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 
 @Entity
-@Table(name = "notes")
+@Table(name = "notes", indexes = {
+        @Index(name = "idx_notes_user_created", columnList = "user_id, created_at DESC, id DESC"),
+        @Index(name = "idx_notes_created", columnList = "created_at DESC, id DESC")
+})
 public class Note {
 
+    // Pooled sequence (V10) rather than IDENTITY, so inserts are batched by JDBC. Ids are
+    // unique on their own; the partitioned table's key is (id, created_at) (V12)
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "notes_id_seq")
+    @SequenceGenerator(name = "notes_id_seq", sequenceName = "notes_id_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
     private String title;
 
+    // Whole body, or only a preview when the body is stored in note_blobs (see NoteContentStore)
     @Column(nullable = false, columnDefinition = "TEXT")
     private String content;
 
+    // SHA-256 of the out-of-line body, null when the body is inline
+    @Column(name = "content_hash", updatable = false)
+    private byte[] contentHash;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false) // FK users(id)
     private User user;
@@ -36,12 +50,21 @@ public class Note {
     @Column(nullable = false)
     private String status = "queued"; // queued | processing | done | failed
 
-    @Column(name = "created_at", updatable = false)
+    @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt = LocalDateTime.now();
 
     @Column(name = "updated_at")
     private LocalDateTime updatedAt = LocalDateTime.now();
 
+    // Bumped by every status transition, see NoteRepository
+    @Version
+    @Column(nullable = false)
+    private long version;
+
+    // Set only by the keyword index sweep, never written back from a loaded entity
+    @Column(name = "terms_indexed", nullable = false, updatable = false)
+    private boolean termsIndexed = false;
+
     // getter & setter
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
@@ -52,6 +75,9 @@ public class Note {
     public String getContent() { return content; }
     public void setContent(String content) { this.content = content; }
 
+    public byte[] getContentHash() { return contentHash; }
+    public void setContentHash(byte[] contentHash) { this.contentHash = contentHash; }
+
     public User getUser() { return user; }
     public void setUser(User user) { this.user = user; }
 
@@ -66,4 +92,10 @@ public class Note {
 
     public LocalDateTime getUpdatedAt() { return updatedAt; }
     public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+
+    public long getVersion() { return version; }
+    public void setVersion(long version) { this.version = version; }
+
+    public boolean isTermsIndexed() { return termsIndexed; }
+    public void setTermsIndexed(boolean termsIndexed) { this.termsIndexed = termsIndexed; }
 }
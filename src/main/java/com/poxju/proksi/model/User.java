@@ -11,6 +11,7 @@ import org.springframework.security.core.userdetails.UserDetails;
 import jakarta.persistence.CascadeType;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
@@ -23,12 +24,15 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import com.poxju.proksi.service.UserChangeListener;
+
 @Data
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
 @Table(name = "users")
+@EntityListeners(UserChangeListener.class) // evicts the user from UserPrincipalCache
 public class User implements UserDetails {
 
     @Id
@@ -48,6 +52,10 @@ public class User implements UserDetails {
     @Column(nullable = false)
     private Role role;
 
+    // Embedded in issued tokens; bumped to revoke them all (V13, see TokenVersions)
+    @Column(name = "token_version", nullable = false)
+    private long tokenVersion;
+
     @OneToMany(mappedBy = "user", cascade = CascadeType.ALL, orphanRemoval = true)
     private Set<Note> notes;
 
@@ -70,6 +78,9 @@ public class User implements UserDetails {
     public Role getRole() { return role; }
     public void setRole(Role role) { this.role = role; }
 
+    public long getTokenVersion() { return tokenVersion; }
+    public void setTokenVersion(long tokenVersion) { this.tokenVersion = tokenVersion; }
+
     public Set<Note> getNotes() { return notes; }
     public void setNotes(Set<Note> notes) { this.notes = notes; }
 
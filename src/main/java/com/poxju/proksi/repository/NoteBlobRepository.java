@@ -0,0 +1,85 @@
+package com.poxju.proksi.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * JDBC access to note_blobs and to the out-of-line body columns of notes. Plain JDBC
+ * because blobs are written with ON CONFLICT and read as streams.
+ */
+@Repository
+public class NoteBlobRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public NoteBlobRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public record InlineNote(long id, String content) {}
+
+    @FunctionalInterface
+    public interface BlobReader<T> {
+        T read(String codec, int originalLength, InputStream data) throws IOException;
+    }
+
+    /**
+     * Stores a blob unless one with the same hash exists. Blobs are immutable, so an
+     * existing row already holds the same content.
+     */
+    public void insertIfAbsent(byte[] hash, String codec, int originalLength, byte[] data) {
+        jdbcTemplate.update("""
+                INSERT INTO note_blobs (hash, codec, original_length, data) VALUES (?, ?, ?, ?)
+                ON CONFLICT (hash) DO NOTHING
+                """, hash, codec, originalLength, data);
+    }
+
+    public <T> Optional<T> read(byte[] hash, BlobReader<T> reader) {
+        return Optional.ofNullable(jdbcTemplate.query(
+                "SELECT codec, original_length, data FROM note_blobs WHERE hash = ?",
+                rs -> {
+                    if (!rs.next()) {
+                        return null;
+                    }
+                    try (InputStream data = rs.getBinaryStream("data")) {
+                        return reader.read(rs.getString("codec"), rs.getInt("original_length"), data);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }, (Object) hash));
+    }
+
+    /**
+     * Sets the search terms of a note whose body is stored out of line.
+     */
+    public void updateBodyVector(long noteId, String body) {
+        jdbcTemplate.update("UPDATE notes SET body_vector = to_tsvector('english', ?) WHERE id = ?", body, noteId);
+    }
+
+    /**
+     * Locks a page of notes whose body is still inline but larger than {@code minBytes}.
+     * Must run in a transaction.
+     */
+    public List<InlineNote> lockLargeInlineNotes(int minBytes, int limit) {
+        return jdbcTemplate.query("""
+                SELECT id, content FROM notes
+                WHERE content_hash IS NULL AND octet_length(content) > ?
+                ORDER BY id
+                LIMIT ?
+                FOR UPDATE SKIP LOCKED
+                """, (rs, rowNum) -> new InlineNote(rs.getLong("id"), rs.getString("content")), minBytes, limit);
+    }
+
+    public void moveOutOfLine(long noteId, String preview, byte[] hash, String body) {
+        jdbcTemplate.update("""
+                UPDATE notes SET content = ?, content_hash = ?, body_vector = to_tsvector('english', ?)
+                WHERE id = ?
+                """, preview, hash, body, noteId);
+    }
+}
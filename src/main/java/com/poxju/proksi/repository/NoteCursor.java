@@ -0,0 +1,44 @@
+package com.poxju.proksi.repository;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.Optional;
+
+/**
+ * Position in a note list, ordered by {@code (created_at, id)} newest first. Pages are
+ * fetched relative to a cursor rather than an offset, so a deep page costs the same index
+ * seek as the first one. Clients get the cursor as an opaque URL-safe token.
+ */
+public record NoteCursor(LocalDateTime createdAt, long id) {
+
+    public static NoteCursor of(NoteListItem item) {
+        return new NoteCursor(item.getCreatedAt(), item.getId());
+    }
+
+    public String encode() {
+        String raw = createdAt + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Parses a token produced by {@link #encode()}; empty if it is missing or malformed.
+     */
+    public static Optional<NoteCursor> decode(String token) {
+        if (token == null || token.isBlank()) {
+            return Optional.empty();
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf('|');
+            if (separator < 0) {
+                return Optional.empty();
+            }
+            return Optional.of(new NoteCursor(
+                    LocalDateTime.parse(raw.substring(0, separator)),
+                    Long.parseLong(raw.substring(separator + 1))));
+        } catch (RuntimeException e) {
+            return Optional.empty();
+        }
+    }
+}
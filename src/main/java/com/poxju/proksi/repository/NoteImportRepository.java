@@ -0,0 +1,45 @@
+package com.poxju.proksi.repository;
+
+import com.poxju.proksi.model.NoteImport;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+public interface NoteImportRepository extends JpaRepository<NoteImport, Long> {
+
+    /**
+     * Adds the counts of one committed batch. Joins the batch's transaction, so the
+     * reported progress never runs ahead of the notes actually stored.
+     */
+    @Modifying
+    @Transactional
+    @Query("""
+            UPDATE NoteImport i SET i.rowsRead = i.rowsRead + :rowsRead,
+                   i.notesImported = i.notesImported + :imported,
+                   i.rowsRejected = i.rowsRejected + :rejected,
+                   i.lastError = COALESCE(:lastError, i.lastError),
+                   i.updatedAt = :now
+            WHERE i.id = :id
+            """)
+    int recordProgress(@Param("id") Long id, @Param("rowsRead") long rowsRead, @Param("imported") long imported,
+            @Param("rejected") long rejected, @Param("lastError") String lastError, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE NoteImport i SET i.status = 'running', i.updatedAt = :now WHERE i.id = :id AND i.status = 'pending'")
+    int markRunning(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query("""
+            UPDATE NoteImport i SET i.status = :status, i.lastError = COALESCE(:lastError, i.lastError),
+                   i.updatedAt = :now, i.finishedAt = :now
+            WHERE i.id = :id
+            """)
+    int markFinished(@Param("id") Long id, @Param("status") String status,
+            @Param("lastError") String lastError, @Param("now") LocalDateTime now);
+}
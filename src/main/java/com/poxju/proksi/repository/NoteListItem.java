@@ -0,0 +1,37 @@
+package com.poxju.proksi.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Row of the note lists: everything but the note body and summary, which are loaded
+ * on demand. The excerpt is cut in the database, so a row stays small however large
+ * the note is.
+ */
+public interface NoteListItem {
+
+    int PREVIEW_LENGTH = 300;
+
+    Long getId();
+    String getTitle();
+    String getStatus();
+    LocalDateTime getCreatedAt();
+    LocalDateTime getUpdatedAt();
+    boolean getHasSummary();
+    String getOwnerUsername();
+    String getOwnerEmail();
+
+    /** First {@code PREVIEW_LENGTH + 1} characters of the content, to tell whether the preview is cut. */
+    String getExcerpt();
+
+    default String getPreview() {
+        String excerpt = getExcerpt();
+        if (excerpt == null || excerpt.length() <= PREVIEW_LENGTH) {
+            return excerpt;
+        }
+        return excerpt.substring(0, PREVIEW_LENGTH) + "…";
+    }
+
+    default boolean isTruncated() {
+        return getExcerpt() != null && getExcerpt().length() > PREVIEW_LENGTH;
+    }
+}
@@ -0,0 +1,171 @@
+package com.poxju.proksi.repository;
+
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * JDBC access to the monthly partitions of notes (V12), named {@code notes_YYYY_MM}.
+ * Plain JDBC because partitions are managed with DDL on tables named at run time.
+ */
+@Repository
+public class NotePartitionRepository {
+
+    private static final Pattern PARTITION_NAME = Pattern.compile("notes_\\d{4}_\\d{2}");
+    private static final String MAINTENANCE_LOCK = "note_partition_maintenance";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JdbcTemplate streamingJdbcTemplate;
+
+    public NotePartitionRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        // Rows are streamed through a cursor rather than loaded at once
+        this.streamingJdbcTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+        this.streamingJdbcTemplate.setFetchSize(500);
+    }
+
+    public static String partitionName(YearMonth month) {
+        return "notes_%04d_%02d".formatted(month.getYear(), month.getMonthValue());
+    }
+
+    public static YearMonth monthOf(String partitionName) {
+        return YearMonth.of(Integer.parseInt(partitionName.substring(6, 10)), Integer.parseInt(partitionName.substring(11, 13)));
+    }
+
+    /**
+     * False when notes is a plain table, as with a schema generated by Hibernate.
+     */
+    public boolean isPartitioned() {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM pg_partitioned_table WHERE partrelid = to_regclass('notes'))",
+                Boolean.class));
+    }
+
+    /**
+     * Runs the task while this instance holds the partition maintenance lock, a session-level
+     * advisory lock kept on a connection of its own for the duration; other statements may
+     * use any connection. Returns false without running the task when another instance
+     * holds the lock. The lock goes with the session if the connection is lost.
+     */
+    public boolean runExclusively(Runnable task) {
+        return Boolean.TRUE.equals(jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            if (!advisoryLock(connection, "SELECT pg_try_advisory_lock(hashtext(?))")) {
+                return false;
+            }
+            try {
+                task.run();
+            } finally {
+                advisoryLock(connection, "SELECT pg_advisory_unlock(hashtext(?))");
+            }
+            return true;
+        }));
+    }
+
+    public List<String> findPartitions() {
+        return jdbcTemplate.queryForList("""
+                SELECT c.relname FROM pg_inherits i
+                JOIN pg_class c ON c.oid = i.inhrelid
+                WHERE i.inhparent = 'notes'::regclass AND c.relname ~ '^notes_[0-9]{4}_[0-9]{2}$'
+                ORDER BY c.relname
+                """, String.class);
+    }
+
+    /**
+     * Partitions whose concurrent detach was interrupted and still has to be finalized.
+     */
+    public List<String> findPendingDetaches() {
+        return jdbcTemplate.queryForList("""
+                SELECT c.relname FROM pg_inherits i
+                JOIN pg_class c ON c.oid = i.inhrelid
+                WHERE i.inhparent = 'notes'::regclass AND i.inhdetachpending
+                ORDER BY c.relname
+                """, String.class);
+    }
+
+    /**
+     * Former partitions that were detached but not archived yet.
+     */
+    public List<String> findDetached() {
+        return jdbcTemplate.queryForList("""
+                SELECT relname FROM pg_class
+                WHERE relkind = 'r' AND NOT relispartition
+                  AND relnamespace = 'public'::regnamespace AND relname ~ '^notes_[0-9]{4}_[0-9]{2}$'
+                ORDER BY relname
+                """, String.class);
+    }
+
+    public void createPartition(YearMonth month) {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS %s PARTITION OF notes FOR VALUES FROM ('%s') TO ('%s')"
+                .formatted(partitionName(month), month.atDay(1), month.plusMonths(1).atDay(1)));
+    }
+
+    /**
+     * Detaches a partition without blocking queries on notes. Must run outside a
+     * transaction; if interrupted, finish it with {@link #finalizeDetach}.
+     */
+    public void detachConcurrently(String partition) {
+        jdbcTemplate.execute("ALTER TABLE notes DETACH PARTITION %s CONCURRENTLY".formatted(checked(partition)));
+    }
+
+    public void finalizeDetach(String partition) {
+        jdbcTemplate.execute("ALTER TABLE notes DETACH PARTITION %s FINALIZE".formatted(checked(partition)));
+    }
+
+    /**
+     * Streams the rows of a detached partition in id order. Must run in a transaction.
+     */
+    public void streamRows(String table, RowCallbackHandler handler) {
+        streamingJdbcTemplate.query("""
+                SELECT id, user_id, title, content, content_hash, summary, status, created_at, updated_at
+                FROM %s ORDER BY id
+                """.formatted(checked(table)), handler);
+    }
+
+    /**
+     * Drops an archived former partition along with the summary jobs of its notes and the
+     * blobs no other note refers to. Must run in a transaction.
+     *
+     * @return number of blobs deleted
+     */
+    public int dropArchived(String table) {
+        String name = checked(table);
+        jdbcTemplate.update("DELETE FROM summary_jobs j USING %s n WHERE j.note_id = n.id".formatted(name));
+        jdbcTemplate.execute("""
+                CREATE TEMPORARY TABLE archived_blob_hashes ON COMMIT DROP AS
+                SELECT DISTINCT content_hash AS hash FROM %s WHERE content_hash IS NOT NULL
+                """.formatted(name));
+        jdbcTemplate.execute("DROP TABLE " + name);
+        // A note inserted meanwhile that reuses one of these blobs makes this fail on the
+        // foreign key; the blob is then kept and the whole drop retried on the next run
+        return jdbcTemplate.update("""
+                DELETE FROM note_blobs b USING archived_blob_hashes a
+                WHERE b.hash = a.hash
+                  AND NOT EXISTS (SELECT 1 FROM notes n WHERE n.content_hash = a.hash)
+                """);
+    }
+
+    private static boolean advisoryLock(Connection connection, String sql) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setString(1, MAINTENANCE_LOCK);
+            try (ResultSet rs = statement.executeQuery()) {
+                return rs.next() && rs.getBoolean(1);
+            }
+        }
+    }
+
+    private static String checked(String partition) {
+        if (!PARTITION_NAME.matcher(partition).matches()) {
+            throw new IllegalArgumentException("Not a notes partition: " + partition);
+        }
+        return partition;
+    }
+}
@@ -0,0 +1,57 @@
+package com.poxju.proksi.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * JDBC access to note_rate_limits (V15), per-user token buckets shared between instances.
+ * Times come from the database clock, so instances with skewed clocks agree.
+ */
+@Repository
+public class NoteRateLimitRepository {
+
+    private static final String NOW_MS = "CAST(EXTRACT(EPOCH FROM clock_timestamp()) * 1000 AS BIGINT)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public NoteRateLimitRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Takes a token from the user's bucket in one statement: the row is only moved forward
+     * if the bucket is not empty.
+     *
+     * @return 0 if a token was taken, otherwise the milliseconds until one is available
+     */
+    public long tryAcquire(long userId, long tokenMs, long capacityMs) {
+        List<Long> taken = jdbcTemplate.queryForList("""
+                WITH clock AS (SELECT %s AS now_ms)
+                INSERT INTO note_rate_limits AS b (user_id, full_at_ms)
+                SELECT ?, now_ms + ? FROM clock
+                ON CONFLICT (user_id) DO UPDATE
+                    SET full_at_ms = GREATEST(b.full_at_ms, (SELECT now_ms FROM clock)) + ?
+                    WHERE GREATEST(b.full_at_ms, (SELECT now_ms FROM clock)) + ? - (SELECT now_ms FROM clock) <= ?
+                RETURNING full_at_ms
+                """.formatted(NOW_MS), Long.class, userId, tokenMs, tokenMs, tokenMs, capacityMs);
+        if (!taken.isEmpty()) {
+            return 0;
+        }
+        Long waitMs = jdbcTemplate.queryForObject("""
+                SELECT GREATEST(1, full_at_ms + ? - %s - ?) FROM note_rate_limits WHERE user_id = ?
+                """.formatted(NOW_MS), Long.class, tokenMs, capacityMs, userId);
+        return waitMs != null ? waitMs : 1;
+    }
+
+    /**
+     * Deletes buckets that are full again, in batches of at most {@code limit} rows.
+     */
+    public int deleteFull(int limit) {
+        return jdbcTemplate.update("""
+                DELETE FROM note_rate_limits WHERE user_id IN (
+                    SELECT user_id FROM note_rate_limits WHERE full_at_ms <= %s LIMIT ?)
+                """.formatted(NOW_MS), limit);
+    }
+}
@@ -1,12 +1,177 @@
 package com.poxju.proksi.repository;
 
 import com.poxju.proksi.model.Note;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface NoteRepository extends JpaRepository<Note, Long> {
     List<Note> findByUserId(Long userId);
     Page<Note> findByUserId(Long userId, Pageable pageable);
+
+    int STREAM_FETCH_SIZE = 500;
+
+    /**
+     * All notes of a user, oldest first, through a forward-only cursor: rows are fetched
+     * {@value #STREAM_FETCH_SIZE} at a time, and loaded read-only so the caller can clear
+     * the persistence context as it goes. Must be consumed and closed in a transaction.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + STREAM_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")
+    })
+    @Query("SELECT n FROM Note n WHERE n.user.id = :userId ORDER BY n.createdAt ASC, n.id ASC")
+    Stream<Note> streamByUserId(@Param("userId") Long userId);
+
+    String LIST_ITEM_SELECT = """
+            SELECT n.id AS id, n.title AS title, n.status AS status,
+                   n.createdAt AS createdAt, n.updatedAt AS updatedAt,
+                   SUBSTRING(n.content, 1, 301) AS excerpt,
+                   CASE WHEN n.summary IS NULL THEN false ELSE true END AS hasSummary,
+                   u.username AS ownerUsername, u.email AS ownerEmail
+            FROM Note n JOIN n.user u
+            """;
+
+    // Keyset pages over (created_at, id), served by idx_notes_user_created / idx_notes_created.
+    // "Older" pages continue past a cursor newest first; "newer" pages walk back towards the
+    // start oldest first and are reversed by the caller. The plain bound on createdAt repeats
+    // the row comparison so that Postgres can skip the monthly partitions past the cursor (V12).
+
+    @Query(LIST_ITEM_SELECT + """
+            WHERE u.id = :userId
+            ORDER BY n.createdAt DESC, n.id DESC
+            """)
+    List<NoteListItem> findLatestListItemsByUserId(@Param("userId") Long userId, Limit limit);
+
+    @Query(LIST_ITEM_SELECT + """
+            WHERE u.id = :userId AND n.createdAt <= :createdAt AND (n.createdAt, n.id) < (:createdAt, :id)
+            ORDER BY n.createdAt DESC, n.id DESC
+            """)
+    List<NoteListItem> findOlderListItemsByUserId(@Param("userId") Long userId,
+            @Param("createdAt") LocalDateTime createdAt, @Param("id") Long id, Limit limit);
+
+    @Query(LIST_ITEM_SELECT + """
+            WHERE u.id = :userId AND n.createdAt >= :createdAt AND (n.createdAt, n.id) > (:createdAt, :id)
+            ORDER BY n.createdAt ASC, n.id ASC
+            """)
+    List<NoteListItem> findNewerListItemsByUserId(@Param("userId") Long userId,
+            @Param("createdAt") LocalDateTime createdAt, @Param("id") Long id, Limit limit);
+
+    @Query(LIST_ITEM_SELECT + """
+            ORDER BY n.createdAt DESC, n.id DESC
+            """)
+    List<NoteListItem> findLatestListItems(Limit limit);
+
+    @Query(LIST_ITEM_SELECT + """
+            WHERE n.createdAt <= :createdAt AND (n.createdAt, n.id) < (:createdAt, :id)
+            ORDER BY n.createdAt DESC, n.id DESC
+            """)
+    List<NoteListItem> findOlderListItems(@Param("createdAt") LocalDateTime createdAt, @Param("id") Long id, Limit limit);
+
+    @Query(LIST_ITEM_SELECT + """
+            WHERE n.createdAt >= :createdAt AND (n.createdAt, n.id) > (:createdAt, :id)
+            ORDER BY n.createdAt ASC, n.id ASC
+            """)
+    List<NoteListItem> findNewerListItems(@Param("createdAt") LocalDateTime createdAt, @Param("id") Long id, Limit limit);
+
+    // Full-text search over search_vector (V8, GIN index idx_notes_search). The inner query
+    // ranks the matches and keeps one page; headlines, which re-parse the content, are built
+    // only for the rows of that page. The join carries created_at so each row of the page is
+    // looked up in its own partition.
+
+    String SEARCH_SELECT = """
+            WITH q AS (SELECT websearch_to_tsquery('english', :query) AS query)
+            SELECT n.id AS id, n.title AS title, n.status AS status, n.created_at AS createdAt,
+                   u.username AS ownerUsername, hit.rank AS rank,
+                   ts_headline('english', n.content, q.query, :headlineOptions) AS headline
+            FROM (
+                SELECT m.id, m.created_at, CAST(ts_rank(m.search_vector, q.query) AS double precision) AS rank
+                FROM notes m, q
+                WHERE m.search_vector @@ q.query
+            """;
+
+    String SEARCH_PAGE = """
+                ORDER BY rank DESC, m.id DESC
+                LIMIT :limit OFFSET :offset
+            ) hit
+            JOIN notes n ON n.id = hit.id AND n.created_at = hit.created_at
+            JOIN users u ON u.id = n.user_id
+            CROSS JOIN q
+            ORDER BY hit.rank DESC, hit.id DESC
+            """;
+
+    @Query(value = SEARCH_SELECT + "AND m.user_id = :userId\n" + SEARCH_PAGE, nativeQuery = true)
+    List<NoteSearchHit> searchByUserId(@Param("userId") Long userId, @Param("query") String query,
+            @Param("headlineOptions") String headlineOptions, @Param("limit") int limit, @Param("offset") int offset);
+
+    @Query(value = SEARCH_SELECT + SEARCH_PAGE, nativeQuery = true)
+    List<NoteSearchHit> search(@Param("query") String query,
+            @Param("headlineOptions") String headlineOptions, @Param("limit") int limit, @Param("offset") int offset);
+
+    @Query("SELECT n.user.id FROM Note n WHERE n.id = :id")
+    Long findOwnerId(@Param("id") Long id);
+
+    // Status transitions. Each is one conditional UPDATE that bumps the version and returns
+    // the version it set, or nothing when the note was not in the expected state. Native
+    // for RETURNING; like any bulk update they bypass notes loaded in the persistence context.
+
+    /**
+     * queued -> processing, only if the note is still at the version the caller read.
+     * The note is then at {@code version + 1}.
+     */
+    @Transactional
+    @Query(value = """
+            UPDATE notes SET status = 'processing', updated_at = :now, version = version + 1
+            WHERE id = :id AND version = :version AND status = 'queued'
+            RETURNING version
+            """, nativeQuery = true)
+    Optional<Long> startProcessing(@Param("id") Long id, @Param("version") long version, @Param("now") LocalDateTime now);
+
+    /**
+     * processing -> done, only if nothing touched the note since it was claimed at {@code version}.
+     */
+    @Transactional
+    @Query(value = """
+            UPDATE notes SET status = 'done', summary = :summary, updated_at = :now, version = version + 1
+            WHERE id = :id AND version = :version AND status = 'processing'
+            RETURNING version
+            """, nativeQuery = true)
+    Optional<Long> completeProcessing(@Param("id") Long id, @Param("version") long version,
+            @Param("summary") String summary, @Param("now") LocalDateTime now);
+
+    /**
+     * processing -> queued, when the note's job goes back to the queue.
+     */
+    @Transactional
+    @Query(value = """
+            UPDATE notes SET status = 'queued', updated_at = :now, version = version + 1
+            WHERE id = :id AND status = 'processing'
+            RETURNING version
+            """, nativeQuery = true)
+    Optional<Long> requeue(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    /**
+     * {@code from} -> failed, once the note's job has given up; {@code from} is queued or processing.
+     */
+    @Transactional
+    @Query(value = """
+            UPDATE notes SET status = 'failed', summary = :summary, updated_at = :now, version = version + 1
+            WHERE id = :id AND status = :from
+            RETURNING version
+            """, nativeQuery = true)
+    Optional<Long> markFailed(@Param("id") Long id, @Param("from") String from,
+            @Param("summary") String summary, @Param("now") LocalDateTime now);
 }
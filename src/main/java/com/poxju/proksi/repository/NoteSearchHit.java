@@ -0,0 +1,18 @@
+package com.poxju.proksi.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * One full-text search match. The headline is an excerpt of the content around the
+ * matched terms, with matches wrapped in the delimiters passed to the query.
+ */
+public interface NoteSearchHit {
+
+    Long getId();
+    String getTitle();
+    String getStatus();
+    LocalDateTime getCreatedAt();
+    String getOwnerUsername();
+    double getRank();
+    String getHeadline();
+}
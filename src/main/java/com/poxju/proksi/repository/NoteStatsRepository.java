@@ -0,0 +1,134 @@
+package com.poxju.proksi.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * JDBC access to the note rollups: counts per owner and status, and hourly throughput.
+ * Writers change notes first and the rollups second, in the same transaction; the
+ * reconciliation relies on that order.
+ */
+@Repository
+public class NoteStatsRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public NoteStatsRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public record UserStatusCounts(long userId, String username, String email,
+            long queued, long processing, long done, long failed) {
+        public long total() {
+            return queued + processing + done + failed;
+        }
+    }
+
+    public record ThroughputBucket(LocalDateTime bucketStart, long created, long completed, long failed) {}
+
+    /**
+     * Adds to the note counts of one owner, one row per status. Statuses are applied in
+     * sorted order so concurrent writers lock the rows in the same order.
+     */
+    public void addCounts(long userId, Map<String, Long> deltas) {
+        List<Object[]> rows = new ArrayList<>();
+        new TreeMap<>(deltas).forEach((status, delta) -> {
+            if (delta != 0) {
+                rows.add(new Object[] { userId, status, delta });
+            }
+        });
+        if (rows.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate("""
+                INSERT INTO note_stats (user_id, status, note_count) VALUES (?, ?, ?)
+                ON CONFLICT (user_id, status) DO UPDATE
+                SET note_count = note_stats.note_count + EXCLUDED.note_count
+                """, rows);
+    }
+
+    public void addThroughput(LocalDateTime bucketStart, long created, long completed, long failed) {
+        jdbcTemplate.update("""
+                INSERT INTO note_throughput (bucket_start, created, completed, failed) VALUES (?, ?, ?, ?)
+                ON CONFLICT (bucket_start) DO UPDATE
+                SET created = note_throughput.created + EXCLUDED.created,
+                    completed = note_throughput.completed + EXCLUDED.completed,
+                    failed = note_throughput.failed + EXCLUDED.failed
+                """, Timestamp.valueOf(bucketStart), created, completed, failed);
+    }
+
+    /**
+     * Note counts of every owner with notes, most notes first.
+     */
+    public List<UserStatusCounts> findUserCounts() {
+        return jdbcTemplate.query("""
+                SELECT s.user_id, u.username, u.email,
+                       sum(s.note_count) FILTER (WHERE s.status = 'queued') AS queued,
+                       sum(s.note_count) FILTER (WHERE s.status = 'processing') AS processing,
+                       sum(s.note_count) FILTER (WHERE s.status = 'done') AS done,
+                       sum(s.note_count) FILTER (WHERE s.status = 'failed') AS failed
+                FROM note_stats s
+                JOIN users u ON u.id = s.user_id
+                GROUP BY s.user_id, u.username, u.email
+                HAVING sum(s.note_count) > 0
+                ORDER BY sum(s.note_count) DESC, s.user_id
+                """, (rs, rowNum) -> new UserStatusCounts(
+                        rs.getLong("user_id"), rs.getString("username"), rs.getString("email"),
+                        rs.getLong("queued"), rs.getLong("processing"), rs.getLong("done"), rs.getLong("failed")));
+    }
+
+    public List<ThroughputBucket> findThroughputSince(LocalDateTime since) {
+        return jdbcTemplate.query("""
+                SELECT bucket_start, created, completed, failed FROM note_throughput
+                WHERE bucket_start >= ?
+                ORDER BY bucket_start
+                """, (rs, rowNum) -> new ThroughputBucket(
+                        rs.getTimestamp("bucket_start").toLocalDateTime(),
+                        rs.getLong("created"), rs.getLong("completed"), rs.getLong("failed")),
+                Timestamp.valueOf(since));
+    }
+
+    /**
+     * Recounts notes per owner and status and corrects the rollup rows that drifted.
+     * Must run in a transaction: the table lock holds off writers' rollup updates, so the
+     * recount sees every committed change and changes still in flight apply their deltas
+     * on top of it afterwards.
+     *
+     * @return number of rows corrected
+     */
+    public int reconcileCounts() {
+        jdbcTemplate.execute("LOCK TABLE note_stats IN SHARE ROW EXCLUSIVE MODE");
+        Integer corrected = jdbcTemplate.queryForObject("""
+                WITH actual AS (
+                    SELECT user_id, status, count(*) AS note_count FROM notes
+                    WHERE user_id IS NOT NULL
+                    GROUP BY user_id, status
+                ), fixed AS (
+                    INSERT INTO note_stats (user_id, status, note_count)
+                    SELECT user_id, status, note_count FROM actual
+                    ON CONFLICT (user_id, status) DO UPDATE
+                    SET note_count = EXCLUDED.note_count
+                    WHERE note_stats.note_count <> EXCLUDED.note_count
+                    RETURNING 1
+                ), cleared AS (
+                    UPDATE note_stats s SET note_count = 0
+                    WHERE s.note_count <> 0
+                      AND NOT EXISTS (SELECT 1 FROM actual a WHERE a.user_id = s.user_id AND a.status = s.status)
+                    RETURNING 1
+                )
+                SELECT (SELECT count(*) FROM fixed) + (SELECT count(*) FROM cleared)
+                """, Integer.class);
+        return corrected != null ? corrected : 0;
+    }
+
+    public int deleteThroughputBefore(LocalDateTime cutoff) {
+        return jdbcTemplate.update("DELETE FROM note_throughput WHERE bucket_start < ?", Timestamp.valueOf(cutoff));
+    }
+}
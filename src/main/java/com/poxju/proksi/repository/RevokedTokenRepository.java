@@ -0,0 +1,55 @@
+package com.poxju.proksi.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+/**
+ * JDBC access to revoked_tokens (V14), the revocation list of tokens by jti.
+ */
+@Repository
+public class RevokedTokenRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public RevokedTokenRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public void insert(String jti, LocalDateTime expiresAt, LocalDateTime now) {
+        jdbcTemplate.update("""
+                INSERT INTO revoked_tokens (jti, expires_at, revoked_at) VALUES (?, ?, ?)
+                ON CONFLICT (jti) DO NOTHING
+                """, jti, Timestamp.valueOf(expiresAt), Timestamp.valueOf(now));
+    }
+
+    public boolean isRevoked(String jti, LocalDateTime now) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM revoked_tokens WHERE jti = ? AND expires_at > ?)",
+                Boolean.class, jti, Timestamp.valueOf(now)));
+    }
+
+    /**
+     * Passes the jti and expiry of every unexpired revocation recorded since the given
+     * time, or of all of them when {@code since} is null.
+     */
+    public void findLive(LocalDateTime since, LocalDateTime now, RowCallbackHandler handler) {
+        if (since == null) {
+            jdbcTemplate.query("SELECT jti, expires_at FROM revoked_tokens WHERE expires_at > ?",
+                    handler, Timestamp.valueOf(now));
+        } else {
+            jdbcTemplate.query("SELECT jti, expires_at FROM revoked_tokens WHERE revoked_at >= ? AND expires_at > ?",
+                    handler, Timestamp.valueOf(since), Timestamp.valueOf(now));
+        }
+    }
+
+    public int deleteExpired(LocalDateTime now, int limit) {
+        return jdbcTemplate.update("""
+                DELETE FROM revoked_tokens WHERE jti IN (
+                    SELECT jti FROM revoked_tokens WHERE expires_at <= ? LIMIT ?)
+                """, Timestamp.valueOf(now), limit);
+    }
+}
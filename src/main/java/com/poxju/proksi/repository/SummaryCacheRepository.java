@@ -0,0 +1,32 @@
+package com.poxju.proksi.repository;
+
+import com.poxju.proksi.model.SummaryCacheEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+public interface SummaryCacheRepository extends JpaRepository<SummaryCacheEntry, String> {
+
+    @Modifying
+    @Transactional
+    @Query(value = """
+            INSERT INTO summary_cache (cache_key, summary, hit_count, created_at, last_accessed_at)
+            VALUES (:key, :summary, 0, :now, :now)
+            ON CONFLICT (cache_key) DO NOTHING
+            """, nativeQuery = true)
+    int insertIfAbsent(@Param("key") String key, @Param("summary") String summary, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE SummaryCacheEntry e SET e.hitCount = e.hitCount + :hits, e.lastAccessedAt = :now WHERE e.cacheKey = :key")
+    int recordHits(@Param("key") String key, @Param("hits") long hits, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM SummaryCacheEntry e WHERE e.lastAccessedAt < :cutoff")
+    int deleteNotAccessedSince(@Param("cutoff") LocalDateTime cutoff);
+}
@@ -0,0 +1,75 @@
+package com.poxju.proksi.repository;
+
+import com.poxju.proksi.model.SummaryJob;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface SummaryJobRepository extends JpaRepository<SummaryJob, Long> {
+
+    /**
+     * Locks the next due pending jobs. Rows already locked by another worker are
+     * skipped instead of waited on, so concurrent workers never block each other.
+     * Must be called inside a transaction; the locks are held until it commits.
+     */
+    @Query(value = """
+            SELECT * FROM summary_jobs
+            WHERE status = 'pending' AND run_at <= :now
+            ORDER BY run_at, id
+            LIMIT :limit
+            FOR UPDATE SKIP LOCKED
+            """, nativeQuery = true)
+    List<SummaryJob> lockDueJobs(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    /**
+     * Locks running jobs whose lease has expired, i.e. whose worker crashed or stalled.
+     */
+    @Query(value = """
+            SELECT * FROM summary_jobs
+            WHERE status = 'running' AND lease_until < :now
+            ORDER BY lease_until
+            LIMIT :limit
+            FOR UPDATE SKIP LOCKED
+            """, nativeQuery = true)
+    List<SummaryJob> lockExpiredLeases(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    /**
+     * Queues one job per note in a single statement, for notes inserted in bulk.
+     */
+    @Modifying
+    @Query(value = """
+            INSERT INTO summary_jobs (note_id, status, attempts, max_attempts, run_at, created_at, updated_at)
+            SELECT n.id, 'pending', 0, :maxAttempts, :runAt, :now, :now
+            FROM notes n WHERE n.id IN (:noteIds)
+            """, nativeQuery = true)
+    int insertPending(@Param("noteIds") Collection<Long> noteIds, @Param("maxAttempts") int maxAttempts,
+            @Param("runAt") LocalDateTime runAt, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("DELETE FROM SummaryJob j WHERE j.id = :id AND j.claimToken = :claimToken")
+    int deleteClaimed(@Param("id") Long id, @Param("claimToken") String claimToken);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT j FROM SummaryJob j WHERE j.id = :id AND j.claimToken = :claimToken AND j.status = 'running'")
+    SummaryJob findClaimed(@Param("id") Long id, @Param("claimToken") String claimToken);
+
+    long countByStatus(String status);
+
+    /**
+     * Counts due pending jobs, up to {@code limit}, so a large backlog costs no more to
+     * measure than the threshold it is compared against.
+     */
+    @Query(value = """
+            SELECT count(*) FROM (
+                SELECT 1 FROM summary_jobs WHERE status = 'pending' AND run_at <= :now LIMIT :limit
+            ) due
+            """, nativeQuery = true)
+    long countDue(@Param("now") LocalDateTime now, @Param("limit") int limit);
+}
@@ -0,0 +1,85 @@
+package com.poxju.proksi.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JDBC access to the term document-frequency index. Plain JDBC rather than JPA because
+ * the index is written with batched upserts, one row per distinct term.
+ */
+@Repository
+public class TermDocumentFrequencyRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    public TermDocumentFrequencyRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+    }
+
+    public record PendingNote(long id, String content, byte[] contentHash) {}
+
+    /**
+     * Locks a page of notes whose terms have not been counted yet. Must run in a transaction.
+     */
+    public List<PendingNote> lockUnindexedNotes(int limit) {
+        return jdbcTemplate.query("""
+                SELECT id, content, content_hash FROM notes
+                WHERE NOT terms_indexed
+                ORDER BY id
+                LIMIT ?
+                FOR UPDATE SKIP LOCKED
+                """, (rs, rowNum) -> new PendingNote(rs.getLong("id"), rs.getString("content"), rs.getBytes("content_hash")),
+                limit);
+    }
+
+    public void markIndexed(Collection<Long> noteIds) {
+        namedJdbcTemplate.update("UPDATE notes SET terms_indexed = TRUE WHERE id IN (:ids)",
+                new MapSqlParameterSource("ids", noteIds));
+    }
+
+    /**
+     * Adds to the document counts of the given terms in one batch. Callers pass terms in a
+     * stable order so concurrent indexers lock rows in the same order.
+     */
+    public void incrementDocumentCounts(List<Map.Entry<String, Integer>> increments) {
+        jdbcTemplate.batchUpdate("""
+                INSERT INTO term_document_frequency (term, document_count) VALUES (?, ?)
+                ON CONFLICT (term) DO UPDATE
+                SET document_count = term_document_frequency.document_count + EXCLUDED.document_count
+                """, increments, 500, (ps, increment) -> {
+            ps.setString(1, increment.getKey());
+            ps.setLong(2, increment.getValue());
+        });
+    }
+
+    public void incrementTotalDocuments(int documents) {
+        jdbcTemplate.update("UPDATE term_index_stats SET document_count = document_count + ? WHERE id = 1", documents);
+    }
+
+    public long totalDocuments() {
+        Long count = jdbcTemplate.queryForObject("SELECT document_count FROM term_index_stats WHERE id = 1", Long.class);
+        return count != null ? count : 0;
+    }
+
+    public Map<String, Long> findDocumentCounts(Collection<String> terms) {
+        Map<String, Long> counts = new HashMap<>();
+        if (terms.isEmpty()) {
+            return counts;
+        }
+        namedJdbcTemplate.query("SELECT term, document_count FROM term_document_frequency WHERE term IN (:terms)",
+                new MapSqlParameterSource("terms", terms),
+                rs -> {
+                    counts.put(rs.getString("term"), rs.getLong("document_count"));
+                });
+        return counts;
+    }
+}
@@ -0,0 +1,10 @@
+package com.poxju.proksi.repository;
+
+/**
+ * Token version of a user whose tokens were revoked at least once.
+ */
+public interface UserTokenVersion {
+
+    Long getId();
+    long getTokenVersion();
+}
@@ -0,0 +1,199 @@
+package com.poxju.proksi.security;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.poxju.proksi.service.TokenBuckets;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Admission control in front of the endpoints that hash passwords. Logins (the form and
+ * {@code /api/v1/auth/authenticate}) take a token from the bucket of the client IP and
+ * from the bucket of the account they name, and are answered 429 with Retry-After when
+ * either is empty, before any password is hashed. On these endpoints and sign-up, a
+ * full hashing queue ({@link BoundedPasswordEncoder}) is answered the same way.
+ * Throttled logins are counted as {@code auth.login.throttled}, tagged with the limit hit.
+ */
+@Component
+public class LoginAdmissionFilter extends OncePerRequestFilter {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final int MAX_BODY_BYTES = 16 * 1024;
+    private static final String FORM_LOGIN = "/login";
+    private static final String API_LOGIN = "/api/v1/auth/authenticate";
+    private static final Set<String> HASHING_PATHS = Set.of(FORM_LOGIN, API_LOGIN, "/api/v1/auth/register");
+
+    private final TokenBuckets ipBuckets;
+    private final TokenBuckets accountBuckets;
+    private final Counter ipThrottled;
+    private final Counter accountThrottled;
+
+    public LoginAdmissionFilter(
+            MeterRegistry meterRegistry,
+            @Value("${auth.rate-limit.ip.capacity:20}") int ipCapacity,
+            @Value("${auth.rate-limit.ip.refill-per-minute:20}") int ipRefillPerMinute,
+            @Value("${auth.rate-limit.account.capacity:5}") int accountCapacity,
+            @Value("${auth.rate-limit.account.refill-per-minute:5}") int accountRefillPerMinute,
+            @Value("${auth.rate-limit.max-keys:100000}") long maxKeys) {
+        this.ipBuckets = new TokenBuckets(ipCapacity, ipRefillPerMinute, maxKeys);
+        this.accountBuckets = new TokenBuckets(accountCapacity, accountRefillPerMinute, maxKeys);
+        this.ipThrottled = meterRegistry.counter("auth.login.throttled", "limit", "ip");
+        this.accountThrottled = meterRegistry.counter("auth.login.throttled", "limit", "account");
+    }
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        return !"POST".equals(request.getMethod()) || !HASHING_PATHS.contains(request.getServletPath());
+    }
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain) throws ServletException, IOException {
+        String path = request.getServletPath();
+        HttpServletRequest admitted = request;
+        if (FORM_LOGIN.equals(path) || API_LOGIN.equals(path)) {
+            long waitMs = ipBuckets.tryAcquire(request.getRemoteAddr());
+            if (waitMs > 0) {
+                ipThrottled.increment();
+                tooManyRequests(response, waitMs, "Too many login attempts from this address");
+                return;
+            }
+
+            String account;
+            if (FORM_LOGIN.equals(path)) {
+                account = request.getParameter("username");
+            } else {
+                byte[] body = request.getInputStream().readNBytes(MAX_BODY_BYTES + 1);
+                if (body.length > MAX_BODY_BYTES) {
+                    response.sendError(HttpStatus.PAYLOAD_TOO_LARGE.value());
+                    return;
+                }
+                admitted = new CachedBodyRequest(request, body);
+                account = emailOf(body);
+            }
+            if (account != null && !account.isBlank()) {
+                waitMs = accountBuckets.tryAcquire(account.trim().toLowerCase(Locale.ROOT));
+                if (waitMs > 0) {
+                    accountThrottled.increment();
+                    tooManyRequests(response, waitMs, "Too many login attempts for this account");
+                    return;
+                }
+            }
+        }
+
+        try {
+            filterChain.doFilter(admitted, response);
+        } catch (PasswordHashingRejectedException e) {
+            hashingRejected(response, e);
+        } catch (ServletException e) {
+            // Thrown from a controller, the rejection arrives wrapped by the DispatcherServlet
+            if (e.getCause() instanceof PasswordHashingRejectedException rejected) {
+                hashingRejected(response, rejected);
+            } else {
+                throw e;
+            }
+        }
+    }
+
+    private static void hashingRejected(HttpServletResponse response, PasswordHashingRejectedException e) throws IOException {
+        if (response.isCommitted()) {
+            throw e;
+        }
+        tooManyRequests(response, e.getRetryAfterSeconds() * 1000, "Server busy, try again shortly");
+    }
+
+    private static void tooManyRequests(HttpServletResponse response, long waitMs, String message) throws IOException {
+        response.resetBuffer();
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, (waitMs + 999) / 1000)));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        OBJECT_MAPPER.writeValue(response.getOutputStream(), Map.of("error", message));
+    }
+
+    private static String emailOf(byte[] body) {
+        try {
+            JsonNode json = OBJECT_MAPPER.readTree(body);
+            return json != null ? json.path("email").asText(null) : null;
+        } catch (IOException e) {
+            // Malformed bodies are rejected by the controller
+            return null;
+        }
+    }
+
+    /**
+     * The request with its body already read, so the filter can look at it and the
+     * controller can still bind it.
+     */
+    private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+
+        private final byte[] body;
+
+        CachedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream in = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public int read() {
+                    return in.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return in.read(b, off, len);
+                }
+
+                @Override
+                public boolean isFinished() {
+                    return in.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    throw new UnsupportedOperationException();
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            return new BufferedReader(new InputStreamReader(getInputStream(), StandardCharsets.UTF_8));
+        }
+    }
+}
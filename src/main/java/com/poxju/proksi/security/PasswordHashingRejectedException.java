@@ -0,0 +1,19 @@
+package com.poxju.proksi.security;
+
+/**
+ * Thrown when the password hashing queue is full. Answered with 429 and a Retry-After
+ * header by {@link LoginAdmissionFilter}.
+ */
+public class PasswordHashingRejectedException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public PasswordHashingRejectedException(long retryAfterSeconds) {
+        super("Too many password checks in progress");
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
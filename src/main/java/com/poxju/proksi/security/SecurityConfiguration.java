@@ -1,5 +1,6 @@
 package com.poxju.proksi.security;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
@@ -9,8 +10,11 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.security.web.authentication.AuthenticationSuccessHandler;
+import org.springframework.security.web.authentication.SimpleUrlAuthenticationFailureHandler;
+import org.springframework.security.web.savedrequest.NullRequestCache;
 
 import com.poxju.proksi.config.JwtAuthenticationFilter;
+import com.poxju.proksi.model.Role;
 import com.poxju.proksi.service.JwtService;
 import com.poxju.proksi.repository.UserRepository;
 
@@ -25,9 +29,15 @@ import lombok.RequiredArgsConstructor;
 public class SecurityConfiguration {
 
     private final JwtAuthenticationFilter jwtAuthFilter;
+    private final LoginAdmissionFilter loginAdmissionFilter;
+    private final TokenRevokingLogoutHandler tokenRevokingLogoutHandler;
     private final JwtService jwtService;
     private final UserRepository userRepository;
 
+    // Opt-in: no HTTP sessions, every request is authenticated by its JWT alone
+    @Value("${auth.stateless:false}")
+    private boolean stateless;
+
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
         http
@@ -44,12 +54,17 @@ public class SecurityConfiguration {
                     "/health",
                     "/ping")
                 .permitAll()
+                // Cache, auth latency and connection pool metrics are for admins only. Authorities
+                // are the bare role names (see User.getAuthorities), hence not hasRole
+                .requestMatchers("/actuator/metrics", "/actuator/metrics/**")
+                .hasAuthority(Role.ADMIN.name())
                 .anyRequest()
                 .authenticated()
             )
             .sessionManagement(session -> session
-                .sessionCreationPolicy(SessionCreationPolicy.IF_REQUIRED)
+                .sessionCreationPolicy(stateless ? SessionCreationPolicy.STATELESS : SessionCreationPolicy.IF_REQUIRED)
             )
+            .addFilterBefore(loginAdmissionFilter, UsernamePasswordAuthenticationFilter.class)
             .addFilterBefore(jwtAuthFilter, UsernamePasswordAuthenticationFilter.class)
             .formLogin(form -> form
                 .loginPage("/login")
@@ -58,11 +73,20 @@ public class SecurityConfiguration {
             )
             .logout(logout -> logout
                 .logoutUrl("/logout")
+                .addLogoutHandler(tokenRevokingLogoutHandler)
                 .logoutSuccessUrl("/login?logout=true")
                 .invalidateHttpSession(true)
                 .deleteCookies("jwtToken")
                 .clearAuthentication(true)
             );
+        if (stateless) {
+            // Nothing may create a session: no saved requests, no login error in the session
+            SimpleUrlAuthenticationFailureHandler failureHandler = new SimpleUrlAuthenticationFailureHandler("/login?error=true");
+            failureHandler.setAllowSessionCreation(false);
+            http
+                .requestCache(cache -> cache.requestCache(new NullRequestCache()))
+                .formLogin(form -> form.failureHandler(failureHandler));
+        }
 
         return http.build();
     }
@@ -0,0 +1,51 @@
+package com.poxju.proksi.security;
+
+import org.springframework.security.core.Authentication;
+import org.springframework.security.web.authentication.logout.LogoutHandler;
+import org.springframework.stereotype.Component;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.poxju.proksi.config.JwtAuthenticationFilter;
+import com.poxju.proksi.service.JwtService;
+import com.poxju.proksi.service.TokenRevocations;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.util.function.Function;
+
+/**
+ * On logout, revokes the JWT the request was made with, so a copy of it kept elsewhere
+ * stops working too rather than staying valid until it expires.
+ */
+@Component
+public class TokenRevokingLogoutHandler implements LogoutHandler {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenRevokingLogoutHandler.class);
+
+    private final JwtService jwtService;
+    private final TokenRevocations tokenRevocations;
+
+    public TokenRevokingLogoutHandler(JwtService jwtService, TokenRevocations tokenRevocations) {
+        this.jwtService = jwtService;
+        this.tokenRevocations = tokenRevocations;
+    }
+
+    @Override
+    public void logout(HttpServletRequest request, HttpServletResponse response, Authentication authentication) {
+        String jwt = JwtAuthenticationFilter.resolveToken(request);
+        if (jwt == null) {
+            return;
+        }
+        try {
+            Claims claims = jwtService.extractClaim(jwt, Function.identity());
+            tokenRevocations.revoke(claims.getId(), claims.getExpiration());
+        } catch (JwtException | IllegalArgumentException e) {
+            // Expired or invalid tokens are useless already
+            logger.debug("Not revoking unusable token on logout: {}", e.getMessage());
+        }
+    }
+}
@@ -1,20 +1,25 @@
 package com.poxju.proksi.service;
 
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.poxju.proksi.model.Note;
 import com.poxju.proksi.repository.NoteRepository;
 
-import lombok.RequiredArgsConstructor;
+import java.time.LocalDateTime;
+import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
 @Service
-@RequiredArgsConstructor
 public class AISummaryService {
 
     private static final Logger logger = LoggerFactory.getLogger(AISummaryService.class);
@@ -22,65 +27,150 @@ public class AISummaryService {
     
     private final NoteRepository noteRepository;
     private final HuggingFaceService huggingFaceService;
+    private final NoteContentStore noteContentStore;
+    private final NoteStatsService noteStatsService;
+    private final TransactionTemplate transactionTemplate;
+    private final Executor taskExecutor;
+    private final ApplicationEventPublisher eventPublisher;
 
-    @Async("taskExecutor")
-    public CompletableFuture<Void> generateSummaryAsync(Long noteId) {
-        return CompletableFuture.runAsync(() -> {
-            try {
-                // Single database query - load note once
-                final Note note = noteRepository.findById(noteId).orElse(null);
-                if (note == null) {
-                    logger.warn("Note not found: {}", noteId);
-                    return;
-                }
+    public AISummaryService(
+            NoteRepository noteRepository,
+            HuggingFaceService huggingFaceService,
+            NoteContentStore noteContentStore,
+            NoteStatsService noteStatsService,
+            PlatformTransactionManager transactionManager,
+            @Qualifier("taskExecutor") Executor taskExecutor,
+            ApplicationEventPublisher eventPublisher) {
+        this.noteRepository = noteRepository;
+        this.huggingFaceService = huggingFaceService;
+        this.noteContentStore = noteContentStore;
+        this.noteStatsService = noteStatsService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.taskExecutor = taskExecutor;
+        this.eventPublisher = eventPublisher;
+    }
 
-                // Update status to processing
-                note.setStatus("processing");
-                noteRepository.save(note);
-                logger.info("Started AI processing for note: {}", noteId);
+    /**
+     * Starts generating the summary for a note and returns without waiting for the API.
+     * The returned future completes once the summary is saved; it completes exceptionally
+     * so the job can be retried, with a retryable {@link InferenceException} when the API
+     * is temporarily unavailable and {@code allowDeferral} is set. Invoked by {@link SummaryJobWorker}.
+     */
+    public CompletableFuture<Void> generateSummary(Long noteId, boolean allowDeferral) {
+        // Read in a read-write transaction so the lookup stays on the primary: the job is
+        // claimed right after the note's insert commits, which a replica may not have replayed
+        final Note note = transactionTemplate.execute(status -> noteRepository.findById(noteId).orElse(null));
+        if (note == null) {
+            logger.warn("Note not found: {}", noteId);
+            return CompletableFuture.completedFuture(null);
+        }
 
-                // Store note content in final variable for lambda usage
-                final String noteContent = note.getContent();
+        // Claim the note: only a queued note still at the version just read moves to processing,
+        // so a duplicate or stale job finds nothing to do
+        Long userId = ownerOf(note);
+        Long processingVersion = moveStatus(userId, "queued", "processing",
+                now -> noteRepository.startProcessing(noteId, note.getVersion(), now));
+        if (processingVersion == null) {
+            logger.info("Note {} is not queued for a summary (status {}), skipping", noteId, note.getStatus());
+            return CompletableFuture.completedFuture(null);
+        }
+        final long claimedVersion = processingVersion;
+        publishStatus(noteId, userId, "processing", claimedVersion);
+        logger.info("Started AI processing for note: {}", noteId);
 
-                // Generate summary with timeout protection
-                String summary = CompletableFuture
-                    .supplyAsync(() -> huggingFaceService.summarizeText(noteContent))
-                    .get(ASYNC_TIMEOUT_SECONDS, TimeUnit.SECONDS);
-                
-                // Update note with summary and status in single save
-                note.setSummary(summary);
-                note.setStatus("done");
-                noteRepository.save(note);
-                
+        // Generate summary with timeout protection; no thread waits while the request is in flight
+        return huggingFaceService.summarizeTextAsync(noteContentStore.read(note), allowDeferral)
+            .orTimeout(ASYNC_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+            .exceptionally(error -> {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                if (cause instanceof TimeoutException) {
+                    logger.error("Timeout processing summary for note {} after {} seconds", noteId, ASYNC_TIMEOUT_SECONDS);
+                    cause = new TimeoutException("Timeout: Processing took too long");
+                }
+                throw new CompletionException(cause);
+            })
+            // Save on the task executor rather than on the HTTP callback thread
+            .thenAcceptAsync(summary -> {
+                Long doneVersion = moveStatus(userId, "processing", "done",
+                        now -> noteRepository.completeProcessing(noteId, claimedVersion, summary, now));
+                if (doneVersion == null) {
+                    // Requeued or failed meanwhile, e.g. after this worker's lease expired
+                    logger.warn("Discarding summary for note {}: the note changed while it was processed", noteId);
+                    return;
+                }
+                publishStatus(noteId, userId, "done", doneVersion);
                 logger.info("AI processing completed for note: {}", noteId);
+            }, taskExecutor);
+    }
 
-            } catch (TimeoutException e) {
-                logger.error("Timeout processing summary for note {} after {} seconds", noteId, ASYNC_TIMEOUT_SECONDS);
-                updateNoteStatus(null, noteId, "Timeout: Processing took too long");
-            } catch (Exception e) {
-                logger.error("Error processing summary for note {}", noteId, e);
-                updateNoteStatus(null, noteId, e.getMessage());
+    /**
+     * Puts a note back to queued when its job returns to the queue.
+     */
+    public void markQueued(Long noteId) {
+        try {
+            Long userId = noteRepository.findOwnerId(noteId);
+            Long version = moveStatus(userId, "processing", "queued", now -> noteRepository.requeue(noteId, now));
+            if (version != null) {
+                publishStatus(noteId, userId, "queued", version);
             }
-        });
+        } catch (Exception ex) {
+            logger.error("Error updating queued status for note {}", noteId, ex);
+        }
     }
-    
-    private void updateNoteStatus(Note note, Long noteId, String errorMessage) {
+
+    /**
+     * Marks a note as failed once its summary job has run out of attempts.
+     */
+    public void markFailed(Long noteId, String errorMessage) {
         try {
-            if (note == null) {
-                note = noteRepository.findById(noteId).orElse(null);
+            // Truncate error message to prevent database issues with very long messages
+            String errorMsg = errorMessage;
+            if (errorMsg != null && errorMsg.length() > 500) {
+                errorMsg = errorMsg.substring(0, 497) + "...";
             }
-            if (note != null) {
-                note.setStatus("failed");
-                // Truncate error message to prevent database issues with very long messages
-                String errorMsg = errorMessage;
-                if (errorMsg != null && errorMsg.length() > 500) {
-                    errorMsg = errorMsg.substring(0, 497) + "...";
+            String summary = "Summary generation failed: " + errorMsg;
+            Long userId = noteRepository.findOwnerId(noteId);
+            for (String from : new String[] { "processing", "queued" }) {
+                Long version = moveStatus(userId, from, "failed",
+                        now -> noteRepository.markFailed(noteId, from, summary, now));
+                if (version != null) {
+                    publishStatus(noteId, userId, "failed", version);
+                    return;
                 }
-                note.setSummary("Summary generation failed: " + errorMsg);
-                noteRepository.save(note);
             }
         } catch (Exception ex) {
             logger.error("Error updating failed status for note {}", noteId, ex);
         }
     }
-}
\ No newline at end of file
+
+    private interface StatusUpdate {
+        /** Runs the conditional update and returns the version it set, if it changed the note. */
+        Optional<Long> apply(LocalDateTime now);
+    }
+
+    /**
+     * Applies a conditional status update and, if it changed the note, the matching
+     * note count change, in one transaction.
+     *
+     * @return the note's version after the update, or null if the note was not changed
+     */
+    private Long moveStatus(Long userId, String from, String to, StatusUpdate update) {
+        return transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            Optional<Long> version = update.apply(now);
+            if (version.isEmpty()) {
+                return null;
+            }
+            noteStatsService.recordTransition(userId, from, to, now);
+            return version.get();
+        });
+    }
+
+    private static Long ownerOf(Note note) {
+        return note.getUser() != null ? note.getUser().getId() : null;
+    }
+
+    private void publishStatus(Long noteId, Long userId, String status, long version) {
+        eventPublisher.publishEvent(new NoteStatusChangedEvent(noteId, userId, status, version));
+    }
+}
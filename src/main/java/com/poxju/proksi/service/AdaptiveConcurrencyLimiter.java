@@ -0,0 +1,86 @@
+package com.poxju.proksi.service;
+
+/**
+ * AIMD concurrency limit for requests to the inference endpoint.
+ * The limit grows by one for every {@code limit} calls that complete near the best latency
+ * seen so far, and is cut multiplicatively when a call fails or its latency rises above
+ * {@code latencyTolerance} times that baseline, i.e. when the upstream starts queueing.
+ * The baseline is re-learned periodically so it follows lasting latency shifts.
+ */
+class AdaptiveConcurrencyLimiter {
+
+    private static final double BACKOFF_RATIO = 0.75;
+    private static final int BASELINE_RESET_SAMPLES = 500;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double latencyTolerance;
+
+    private double limit;
+    private int inFlight;
+    private long baselineNanos = Long.MAX_VALUE;
+    private int samplesSinceReset;
+
+    AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, double latencyTolerance) {
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.latencyTolerance = Math.max(1.0, latencyTolerance);
+        this.limit = Math.max(this.minLimit, Math.min(initialLimit, this.maxLimit));
+    }
+
+    synchronized boolean tryAcquire() {
+        if (inFlight >= (int) limit) {
+            return false;
+        }
+        inFlight++;
+        return true;
+    }
+
+    /**
+     * Releases a slot and adjusts the limit from the call's outcome.
+     *
+     * @param dropped whether the call failed in a way that indicates overload
+     */
+    synchronized void onSample(long latencyNanos, boolean dropped) {
+        int inFlightAtCompletion = inFlight;
+        inFlight = Math.max(0, inFlight - 1);
+
+        if (dropped) {
+            decrease();
+            return;
+        }
+
+        if (++samplesSinceReset >= BASELINE_RESET_SAMPLES) {
+            baselineNanos = latencyNanos;
+            samplesSinceReset = 0;
+        } else if (latencyNanos < baselineNanos) {
+            baselineNanos = latencyNanos;
+        }
+
+        if (latencyNanos > baselineNanos * latencyTolerance) {
+            decrease();
+        } else if (inFlightAtCompletion * 2 >= limit) {
+            // Only grow while the current limit is actually being used
+            limit = Math.min(maxLimit, limit + 1.0 / limit);
+        }
+    }
+
+    /**
+     * Releases a slot without a latency sample, e.g. when the request was never sent.
+     */
+    synchronized void release() {
+        inFlight = Math.max(0, inFlight - 1);
+    }
+
+    synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    private void decrease() {
+        limit = Math.max(minLimit, limit * BACKOFF_RATIO);
+    }
+}
@@ -23,6 +23,8 @@ public class AuthenticationService {
     private final PasswordEncoder passwordEncoder;
     private final JwtService jwtService;
     private final AuthenticationConfiguration authenticationConfiguration;
+    private final UserPrincipalCache userPrincipalCache;
+    private final TokenVersions tokenVersions;
 
     public void authenticate(String email, String password) throws Exception {
         AuthenticationManager authenticationManager = authenticationConfiguration.getAuthenticationManager();
@@ -61,4 +63,13 @@ public class AuthenticationService {
             .build(); 
     }
 
+    /**
+     * Revokes every token issued to the user so far, e.g. after a password or role change.
+     */
+    public void revokeTokens(String email) {
+        var user = userPrincipalCache.findByEmail(email)
+            .orElseThrow(() -> new UsernameNotFoundException("User not found IN SERVICE"));
+        tokenVersions.revoke(user);
+    }
+
 }
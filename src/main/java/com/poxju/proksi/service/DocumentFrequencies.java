@@ -0,0 +1,30 @@
+package com.poxju.proksi.service;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Corpus statistics used to weight keywords: how many documents were indexed and how
+ * many of them contain each term.
+ */
+interface DocumentFrequencies {
+
+    DocumentFrequencies EMPTY = new DocumentFrequencies() {
+        @Override
+        public long totalDocuments() {
+            return 0;
+        }
+
+        @Override
+        public Map<String, Long> documentCounts(Collection<String> terms) {
+            return Map.of();
+        }
+    };
+
+    long totalDocuments();
+
+    /**
+     * Returns the document count of each known term; unknown terms are absent.
+     */
+    Map<String, Long> documentCounts(Collection<String> terms);
+}
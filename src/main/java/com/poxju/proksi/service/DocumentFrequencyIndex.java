@@ -0,0 +1,158 @@
+package com.poxju.proksi.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.poxju.proksi.repository.TermDocumentFrequencyRepository;
+import com.poxju.proksi.repository.TermDocumentFrequencyRepository.PendingNote;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Persistent document-frequency index over the notes table, used for TF-IDF keywords.
+ * A background sweep folds each saved note into term_document_frequency exactly once:
+ * it locks unindexed notes, upserts the counts of their distinct terms in one batch and
+ * flags the notes, all in one transaction, so the index survives restarts and several
+ * nodes can sweep concurrently. Lookups go through a small in-memory cache.
+ */
+@Component
+public class DocumentFrequencyIndex implements DocumentFrequencies {
+
+    private static final Logger logger = LoggerFactory.getLogger(DocumentFrequencyIndex.class);
+
+    private final TermDocumentFrequencyRepository repository;
+    private final NoteContentStore noteContentStore;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final Cache<String, Long> documentCounts;
+    private volatile long totalDocuments = -1;
+
+    public DocumentFrequencyIndex(
+            TermDocumentFrequencyRepository repository,
+            NoteContentStore noteContentStore,
+            PlatformTransactionManager transactionManager,
+            @Value("${keywords.index.batch-size:200}") int batchSize,
+            @Value("${keywords.cache.max-terms:100000}") long maxCachedTerms) {
+        this.repository = repository;
+        this.noteContentStore = noteContentStore;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = Math.max(1, batchSize);
+        // Other nodes update the index too, so cached counts are refreshed every few minutes
+        this.documentCounts = Caffeine.newBuilder()
+                .maximumSize(maxCachedTerms)
+                .expireAfterWrite(Duration.ofMinutes(5))
+                .build();
+    }
+
+    @Override
+    public long totalDocuments() {
+        if (totalDocuments < 0) {
+            totalDocuments = repository.totalDocuments();
+        }
+        return totalDocuments;
+    }
+
+    @Override
+    public Map<String, Long> documentCounts(Collection<String> terms) {
+        Map<String, Long> counts = documentCounts.getAll(terms, missing -> {
+            Map<String, Long> loaded = new HashMap<>(repository.findDocumentCounts(toList(missing)));
+            // Cache unknown terms as zero so they are not looked up again
+            for (String term : missing) {
+                loaded.putIfAbsent(term, 0L);
+            }
+            return loaded;
+        });
+        Map<String, Long> known = new HashMap<>();
+        counts.forEach((term, count) -> {
+            if (count > 0) {
+                known.put(term, count);
+            }
+        });
+        return known;
+    }
+
+    @Scheduled(
+            initialDelayString = "${keywords.index.initial-delay-ms:15000}",
+            fixedDelayString = "${keywords.index.interval-ms:15000}")
+    public void indexPendingNotes() {
+        try {
+            int indexed = 0;
+            int batch;
+            do {
+                batch = indexBatch();
+                indexed += batch;
+            } while (batch == batchSize);
+            if (indexed > 0) {
+                totalDocuments = repository.totalDocuments();
+                logger.info("Added {} notes to the keyword index", indexed);
+            }
+        } catch (Exception e) {
+            logger.error("Error updating keyword index", e);
+        }
+    }
+
+    private record IndexedBatch(int notes, Set<String> terms) {}
+
+    private int indexBatch() {
+        IndexedBatch batch = transactionTemplate.execute(status -> {
+            List<PendingNote> notes = repository.lockUnindexedNotes(batchSize);
+            if (notes.isEmpty()) {
+                return new IndexedBatch(0, Set.of());
+            }
+            // Sorted so concurrent sweeps lock term rows in the same order
+            Map<String, Integer> increments = new TreeMap<>();
+            List<Long> noteIds = new ArrayList<>(notes.size());
+            for (PendingNote note : notes) {
+                noteIds.add(note.id());
+                String content;
+                try {
+                    content = noteContentStore.read(note.content(), note.contentHash());
+                } catch (IllegalStateException e) {
+                    // Leave the note out of the counts rather than stall the sweep on it
+                    logger.error("Skipping note {} in the keyword index: {}", note.id(), e.getMessage());
+                    continue;
+                }
+                if (content == null) {
+                    continue;
+                }
+                TermCounter terms = KeywordExtractor.countTerms(content);
+                for (int id = 0; id < terms.size(); id++) {
+                    String term = terms.term(id);
+                    if (!KeywordExtractor.isStopword(term)) {
+                        increments.merge(term, 1, Integer::sum);
+                    }
+                }
+            }
+            repository.incrementDocumentCounts(new ArrayList<>(increments.entrySet()));
+            repository.markIndexed(noteIds);
+            repository.incrementTotalDocuments(notes.size());
+            return new IndexedBatch(notes.size(), increments.keySet());
+        });
+        if (batch == null) {
+            return 0;
+        }
+        // After commit, so a concurrent lookup cannot cache the old counts again
+        documentCounts.invalidateAll(batch.terms());
+        return batch.notes();
+    }
+
+    private static List<String> toList(Iterable<? extends String> terms) {
+        List<String> list = new ArrayList<>();
+        terms.forEach(list::add);
+        return list;
+    }
+}
@@ -0,0 +1,221 @@
+package com.poxju.proksi.service;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Local extractive summarizer used when the inference API is not available.
+ * Scores sentences by the frequency of their content words (Luhn-style), normalized by
+ * sentence length with a small bonus for the lead sentence, and returns the best two in
+ * document order together with key topics from the {@link KeywordExtractor}.
+ * <p>
+ * The text is tokenized in place, twice, without regular expressions or copies: the first
+ * pass counts terms and records sentence boundaries, the second scores sentences. Only the
+ * distinct terms and the few output sentences are allocated, so multi-megabyte notes cost
+ * little more than a scan. Instances are stateless and thread-safe.
+ */
+class ExtractiveSummarizer {
+
+    private static final int SUMMARY_SENTENCES = 2;
+    private static final int KEYWORD_COUNT = 3;
+    private static final int MAX_SENTENCE_CHARS = 300;
+    private static final double LEAD_BONUS = 1.25;
+
+    private final KeywordExtractor keywordExtractor;
+
+    ExtractiveSummarizer(KeywordExtractor keywordExtractor) {
+        this.keywordExtractor = keywordExtractor;
+    }
+
+    String summarize(CharSequence text) {
+        Scan scan = scan(text);
+
+        if (scan.sentenceCount <= 1) {
+            StringBuilder clean = new StringBuilder(101);
+            appendCollapsed(clean, text, 0, text.length(), 101);
+            if (clean.length() < 50) {
+                return "📝 Short note: " + clean;
+            }
+            return "📝 " + (clean.length() > 100 ? clean.substring(0, 97) + "..." : clean);
+        }
+
+        int[] selected = selectSentences(text, scan);
+        StringBuilder summary = new StringBuilder("📝 Summary: ");
+        for (int i = 0; i < selected.length; i++) {
+            int sentence = selected[i];
+            int lengthBefore = summary.length();
+            if (appendCollapsed(summary, text, scan.sentenceStarts[sentence], scan.sentenceEnds[sentence], MAX_SENTENCE_CHARS)) {
+                summary.append("...");
+            }
+            char last = summary.charAt(summary.length() - 1);
+            if (summary.length() > lengthBefore && last != '.' && last != '!' && last != '?') {
+                summary.append('.');
+            }
+            if (i < selected.length - 1) {
+                summary.append(' ');
+            }
+        }
+
+        List<String> keywords = keywordExtractor.extract(scan.terms, scan.stopwords, KEYWORD_COUNT);
+        if (!keywords.isEmpty()) {
+            summary.append(" [Key topics: ").append(String.join(", ", keywords)).append("]");
+        }
+        return summary.toString();
+    }
+
+    private static Scan scan(CharSequence text) {
+        int length = text.length();
+        Scan scan = new Scan(Math.max(16, Math.min(length / 40, 1 << 16)));
+        int sentenceStart = -1;
+        int tokenStart = -1;
+        int sentenceTokens = 0;
+        int newlines = 0;
+
+        for (int i = 0; i <= length; i++) {
+            char c = i < length ? text.charAt(i) : ' ';
+            boolean wordChar = i < length && Character.isLetterOrDigit(c);
+            if (wordChar) {
+                if (tokenStart < 0) {
+                    tokenStart = i;
+                }
+            } else if (tokenStart >= 0) {
+                if (isTerm(tokenStart, i)) {
+                    scan.terms.add(text, tokenStart, i);
+                }
+                sentenceTokens++;
+                tokenStart = -1;
+            }
+
+            if (!Character.isWhitespace(c) && sentenceStart < 0 && i < length) {
+                sentenceStart = i;
+            }
+            newlines = c == '\n' ? newlines + 1 : Character.isWhitespace(c) ? newlines : 0;
+
+            // A sentence ends at terminal punctuation followed by whitespace, at a blank line, or at the end
+            boolean terminal = (c == '.' || c == '!' || c == '?')
+                    && (i + 1 >= length || Character.isWhitespace(text.charAt(i + 1)));
+            if (sentenceStart >= 0 && (terminal || newlines >= 2 || i == length)) {
+                if (sentenceTokens > 0) {
+                    scan.addSentence(sentenceStart, terminal ? i + 1 : i, sentenceTokens);
+                }
+                sentenceStart = -1;
+                sentenceTokens = 0;
+            }
+        }
+
+        scan.stopwords = new boolean[scan.terms.size()];
+        for (int id = 0; id < scan.terms.size(); id++) {
+            scan.stopwords[id] = KeywordExtractor.isStopword(scan.terms.term(id));
+        }
+        return scan;
+    }
+
+    private static int[] selectSentences(CharSequence text, Scan scan) {
+        int wanted = Math.min(SUMMARY_SENTENCES, scan.sentenceCount);
+        int[] best = new int[wanted];
+        double[] bestScores = new double[wanted];
+        Arrays.fill(best, -1);
+        Arrays.fill(bestScores, Double.NEGATIVE_INFINITY);
+
+        for (int sentence = 0; sentence < scan.sentenceCount; sentence++) {
+            double score = score(text, scan, sentence);
+            // Insert into the small sorted array of the best scores so far
+            for (int rank = 0; rank < wanted; rank++) {
+                if (score > bestScores[rank]) {
+                    System.arraycopy(best, rank, best, rank + 1, wanted - rank - 1);
+                    System.arraycopy(bestScores, rank, bestScores, rank + 1, wanted - rank - 1);
+                    best[rank] = sentence;
+                    bestScores[rank] = score;
+                    break;
+                }
+            }
+        }
+        Arrays.sort(best);
+        return best;
+    }
+
+    private static double score(CharSequence text, Scan scan, int sentence) {
+        int start = scan.sentenceStarts[sentence];
+        int end = scan.sentenceEnds[sentence];
+        long weight = 0;
+        int tokenStart = -1;
+        for (int i = start; i <= end; i++) {
+            boolean wordChar = i < end && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar) {
+                if (tokenStart < 0) {
+                    tokenStart = i;
+                }
+            } else if (tokenStart >= 0) {
+                if (isTerm(tokenStart, i)) {
+                    int id = scan.terms.find(text, tokenStart, i);
+                    if (id >= 0 && !scan.stopwords[id]) {
+                        weight += scan.terms.count(id);
+                    }
+                }
+                tokenStart = -1;
+            }
+        }
+        double score = weight / Math.sqrt(Math.max(1, scan.sentenceTokens[sentence]));
+        return sentence == 0 ? score * LEAD_BONUS : score;
+    }
+
+    private static boolean isTerm(int start, int end) {
+        int length = end - start;
+        return length >= KeywordExtractor.MIN_TERM_LENGTH && length <= KeywordExtractor.MAX_TERM_LENGTH;
+    }
+
+    /**
+     * Appends {@code text[start, end)} with whitespace runs collapsed to single spaces,
+     * stopping at {@code maxChars} appended characters.
+     *
+     * @return whether the range was cut short
+     */
+    private static boolean appendCollapsed(StringBuilder out, CharSequence text, int start, int end, int maxChars) {
+        int appended = 0;
+        boolean pendingSpace = false;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (Character.isWhitespace(c)) {
+                pendingSpace = appended > 0;
+                continue;
+            }
+            if (appended + (pendingSpace ? 2 : 1) > maxChars) {
+                return true;
+            }
+            if (pendingSpace) {
+                out.append(' ');
+                appended++;
+                pendingSpace = false;
+            }
+            out.append(c);
+            appended++;
+        }
+        return false;
+    }
+
+    private static final class Scan {
+        final TermCounter terms;
+        boolean[] stopwords;
+        int[] sentenceStarts = new int[16];
+        int[] sentenceEnds = new int[16];
+        int[] sentenceTokens = new int[16];
+        int sentenceCount;
+
+        Scan(int expectedTerms) {
+            this.terms = new TermCounter(expectedTerms);
+        }
+
+        void addSentence(int start, int end, int tokens) {
+            if (sentenceCount == sentenceStarts.length) {
+                int capacity = sentenceCount * 2;
+                sentenceStarts = Arrays.copyOf(sentenceStarts, capacity);
+                sentenceEnds = Arrays.copyOf(sentenceEnds, capacity);
+                sentenceTokens = Arrays.copyOf(sentenceTokens, capacity);
+            }
+            sentenceStarts[sentenceCount] = start;
+            sentenceEnds[sentenceCount] = end;
+            sentenceTokens[sentenceCount] = tokens;
+            sentenceCount++;
+        }
+    }
+}
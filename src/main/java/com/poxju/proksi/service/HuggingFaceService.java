@@ -3,14 +3,28 @@ package com.poxju.proksi.service;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import okhttp3.*;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import jakarta.annotation.PreDestroy;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 
 @Service
 public class HuggingFaceService {
@@ -19,8 +33,23 @@ public class HuggingFaceService {
     private static final OkHttpClient SHARED_CLIENT;
     private final ObjectMapper objectMapper;
     private final String apiToken;
+    private final String apiUrl;
+    private final SummaryBatcher batcher;
+    private final MapReduceSummarizer mapReduce;
+    private final ExtractiveSummarizer fallbackSummarizer;
+    private final SummaryCache summaryCache;
+    private final Executor taskExecutor;
+    private final InferenceCircuitBreaker circuitBreaker;
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+    private final Counter circuitRejections;
+    private final Counter limitRejections;
     
-    private static final String HF_API_URL = "https://api-inference.huggingface.co/models/facebook/bart-large-cnn";
+    private static final String HF_MODEL = "facebook/bart-large-cnn";
+    private static final String HF_API_URL = "https://api-inference.huggingface.co/models/" + HF_MODEL;
+    private static final int SUMMARY_MAX_LENGTH = 150;
+    private static final int SUMMARY_MIN_LENGTH = 50;
+    private static final Duration DEFAULT_MODEL_LOAD_WAIT = Duration.ofSeconds(20);
+    private static final MediaType JSON = MediaType.get("application/json; charset=utf-8");
     
     static {
         // Shared OkHttpClient with connection pooling for better resource usage
@@ -32,215 +61,286 @@ public class HuggingFaceService {
                 .build();
     }
     
-    public HuggingFaceService(@Value("${huggingface.api.token:}") String apiToken) {
+    public HuggingFaceService(
+            SummaryCache summaryCache,
+            DocumentFrequencyIndex documentFrequencyIndex,
+            MeterRegistry meterRegistry,
+            @Qualifier("taskExecutor") Executor taskExecutor,
+            @Value("${huggingface.api.token:}") String apiToken,
+            @Value("${huggingface.api.url:" + HF_API_URL + "}") String apiUrl,
+            @Value("${huggingface.batch.max-size:8}") int batchMaxSize,
+            @Value("${huggingface.batch.max-wait-ms:50}") long batchMaxWaitMs,
+            @Value("${huggingface.chunking.max-chunk-chars:3000}") int maxChunkChars,
+            @Value("${huggingface.chunking.max-parallel-chunks:8}") int maxParallelChunks,
+            @Value("${huggingface.chunking.max-depth:3}") int maxReduceDepth,
+            @Value("${huggingface.max-outstanding-requests:4}") int maxOutstandingRequests,
+            @Value("${huggingface.limiter.initial-limit:2}") int initialLimit,
+            @Value("${huggingface.limiter.latency-tolerance:2.0}") double latencyTolerance,
+            @Value("${huggingface.circuit.window-size:20}") int circuitWindowSize,
+            @Value("${huggingface.circuit.minimum-calls:5}") int circuitMinimumCalls,
+            @Value("${huggingface.circuit.failure-rate-threshold:0.5}") double failureRateThreshold,
+            @Value("${huggingface.circuit.slow-call-rate-threshold:0.8}") double slowCallRateThreshold,
+            @Value("${huggingface.circuit.slow-call-ms:20000}") long slowCallMs,
+            @Value("${huggingface.circuit.open-ms:30000}") long openMs,
+            @Value("${huggingface.circuit.half-open-probes:2}") int halfOpenProbes) {
+        this.summaryCache = summaryCache;
+        this.taskExecutor = taskExecutor;
         this.apiToken = apiToken;
+        this.apiUrl = apiUrl;
         this.objectMapper = new ObjectMapper();
+        // Bounds requests in flight on the wire; no thread waits on any of them. The limit
+        // moves between 1 and max-outstanding-requests with the observed latency.
+        this.concurrencyLimiter = new AdaptiveConcurrencyLimiter(initialLimit, 1, maxOutstandingRequests, latencyTolerance);
+        this.circuitBreaker = new InferenceCircuitBreaker(circuitWindowSize, circuitMinimumCalls,
+                failureRateThreshold, slowCallRateThreshold, Duration.ofMillis(slowCallMs),
+                Duration.ofMillis(openMs), halfOpenProbes, System::nanoTime);
+        this.circuitRejections = meterRegistry.counter("huggingface.requests.rejected", "reason", "circuit_open");
+        this.limitRejections = meterRegistry.counter("huggingface.requests.rejected", "reason", "concurrency_limit");
+        meterRegistry.gauge("huggingface.circuit.state", circuitBreaker, breaker -> breaker.getState().ordinal());
+        meterRegistry.gauge("huggingface.concurrency.limit", concurrencyLimiter, AdaptiveConcurrencyLimiter::getLimit);
+        meterRegistry.gauge("huggingface.concurrency.in-flight", concurrencyLimiter, AdaptiveConcurrencyLimiter::getInFlight);
+        this.batcher = new SummaryBatcher(batchMaxSize, batchMaxWaitMs, this::summarizeBatch, this::summarizeSingle);
+        this.fallbackSummarizer = new ExtractiveSummarizer(new KeywordExtractor(documentFrequencyIndex));
+        this.mapReduce = new MapReduceSummarizer(new TextChunker(maxChunkChars), this::summarizeChunk,
+                maxParallelChunks, maxReduceDepth);
     }
-    
-    public String summarizeText(String text) {
-        try {
-            if (apiToken == null || apiToken.isEmpty() || apiToken.equals("${HUGGINGFACE_API_TOKEN}")) {
-                logger.debug("HuggingFace API token not configured, using fallback");
-                return generateFallbackSummary(text);
+
+    @PreDestroy
+    public void shutdown() {
+        batcher.shutdown();
+    }
+
+    /**
+     * Summarizes text without blocking the calling thread.
+     * Completes with the model summary, or with a local fallback summary when the API is
+     * not configured or the call fails. With {@code allowDeferral}, transient conditions
+     * (request limit reached, circuit open, model still loading) complete exceptionally
+     * with a retryable {@link InferenceException} instead, so the caller can retry after
+     * {@link InferenceException#getRetryAfter()} rather than settle for the fallback.
+     */
+    public CompletableFuture<String> summarizeTextAsync(String text, boolean allowDeferral) {
+        if (!isApiConfigured()) {
+            logger.debug("HuggingFace API token not configured, using fallback");
+            return CompletableFuture.completedFuture(generateFallbackSummary(text));
+        }
+
+        // Text that does not fit one model input is summarized chunk by chunk, then reduced
+        String input = text.strip();
+        CompletableFuture<String> result = mapReduce.needsChunking(input)
+                ? summaryCache.getOrLoad(cacheKeyFor(input), () -> mapReduce.summarize(input))
+                : summarizeChunk(input);
+        return result
+                .handle((summary, error) -> {
+                    if (error == null) {
+                        if (summary.equals(text.trim())) {
+                            logger.debug("Summary equals original text, using fallback");
+                            return fallbackSummaryAsync(text);
+                        }
+                        return CompletableFuture.completedFuture(summary);
+                    }
+                    Throwable cause = unwrap(error);
+                    if (allowDeferral && cause instanceof InferenceException inferenceError && inferenceError.isRetryable()) {
+                        throw inferenceError;
+                    }
+                    logger.warn("HuggingFace API call failed: {}", cause.getMessage());
+                    return fallbackSummaryAsync(text);
+                })
+                .thenCompose(Function.identity());
+    }
+
+    /**
+     * Summarizes one model input. Cached by content hash; on a miss the text joins the next micro-batch.
+     */
+    private CompletableFuture<String> summarizeChunk(String chunk) {
+        return summaryCache.getOrLoad(cacheKeyFor(chunk), () -> batcher.submit(chunk));
+    }
+
+    private String cacheKeyFor(String text) {
+        return summaryCache.keyFor(text, HF_MODEL, SUMMARY_MAX_LENGTH, SUMMARY_MIN_LENGTH);
+    }
+
+    private boolean isApiConfigured() {
+        return apiToken != null && !apiToken.isEmpty() && !apiToken.equals("${HUGGINGFACE_API_TOKEN}");
+    }
+
+    /**
+     * Sends several inputs in one request; the inference API answers with one result per input.
+     * Entries without a usable summary come back as null so the batcher retries them alone.
+     */
+    private CompletableFuture<List<String>> summarizeBatch(List<String> inputs) {
+        return postInference(inputs).thenApply(results -> {
+            if (!results.isArray()) {
+                throw new InferenceException("Unexpected batch response format from HuggingFace API");
             }
-            
-            String truncatedText = truncateText(text, 800);
-            
+            List<String> summaries = new ArrayList<>(inputs.size());
+            for (int i = 0; i < inputs.size(); i++) {
+                summaries.add(i < results.size() ? extractSummary(results.get(i)) : null);
+            }
+            return summaries;
+        });
+    }
+
+    private CompletableFuture<String> summarizeSingle(String input) {
+        return postInference(input).thenApply(result -> {
+            String summary = extractSummary(result);
+            if (summary == null) {
+                throw new InferenceException("Unexpected response format from HuggingFace API");
+            }
+            return summary;
+        });
+    }
+
+    /**
+     * Posts an inference request with OkHttp's asynchronous API. The returned future
+     * completes on an OkHttp callback thread once the response has been read.
+     */
+    private CompletableFuture<JsonNode> postInference(Object inputs) {
+        // Fail fast while the upstream is down or cold instead of waiting out its timeouts
+        if (!circuitBreaker.tryAcquirePermission()) {
+            circuitRejections.increment();
+            return CompletableFuture.failedFuture(new InferenceUnavailableException(circuitBreaker.remainingOpenTime()));
+        }
+        if (!concurrencyLimiter.tryAcquire()) {
+            circuitBreaker.releasePermission();
+            limitRejections.increment();
+            return CompletableFuture.failedFuture(new InferenceBackpressureException(concurrencyLimiter.getLimit()));
+        }
+
+        Request request;
+        try {
             Map<String, Object> requestBody = new HashMap<>();
-            requestBody.put("inputs", truncatedText);
+            requestBody.put("inputs", inputs);
             
             Map<String, Object> parameters = new HashMap<>();
-            parameters.put("max_length", 150);
-            parameters.put("min_length", 50);
+            parameters.put("max_length", SUMMARY_MAX_LENGTH);
+            parameters.put("min_length", SUMMARY_MIN_LENGTH);
             parameters.put("do_sample", false);
             requestBody.put("parameters", parameters);
             
             String requestBodyJson = objectMapper.writeValueAsString(requestBody);
             logger.debug("Sending request to HuggingFace API");
             
-            RequestBody body = RequestBody.create(
-                requestBodyJson, 
-                MediaType.get("application/json; charset=utf-8")
-            );
-            
-            Request request = new Request.Builder()
-                    .url(HF_API_URL)
-                    .post(body)
+            request = new Request.Builder()
+                    .url(apiUrl)
+                    .post(RequestBody.create(requestBodyJson, JSON))
                     .addHeader("Content-Type", "application/json")
                     .addHeader("Authorization", "Bearer " + apiToken)
                     .build();
-            
-            try (Response response = SHARED_CLIENT.newCall(request).execute()) {
-                logger.debug("HuggingFace API response code: {}", response.code());
-                
-                ResponseBody responseBody = response.body();
-                if (responseBody == null) {
-                    logger.warn("HuggingFace API returned null response body");
-                    return generateFallbackSummary(text);
-                }
-                
-                if (!response.isSuccessful()) {
-                    logger.warn("HuggingFace API error: {} - {}", response.code(), response.message());
-                    // Consume the error response body to allow connection reuse
-                    try {
-                        responseBody.string();
-                    } catch (Exception ignored) {
-                        // Ignore errors when consuming error response
-                    }
-                    return generateFallbackSummary(text);
-                }
-                
-                // Read response body - for API responses this should be reasonable size
-                String responseBodyString = responseBody.string();
-                return parseSummaryResponse(responseBodyString, text);
-            }
-            
         } catch (Exception e) {
-            logger.error("Error calling HuggingFace API", e);
-            return generateFallbackSummary(text);
+            concurrencyLimiter.release();
+            circuitBreaker.releasePermission();
+            return CompletableFuture.failedFuture(e);
         }
-    }
-    
-    private String parseSummaryResponse(String responseBody, String originalText) {
-        try {
-            JsonNode jsonNode = objectMapper.readTree(responseBody);
-            
-            if (jsonNode.has("error")) {
-                String errorMsg = jsonNode.get("error").asText();
-                logger.warn("HuggingFace API error: {}", errorMsg);
-                
-                if (errorMsg.contains("currently loading")) {
-                    return "Model is loading, please try again in a few seconds. Meanwhile: " + 
-                           generateFallbackSummary(originalText);
-                }
-                return generateFallbackSummary(originalText);
+
+        CompletableFuture<JsonNode> result = new CompletableFuture<>();
+        long startedAt = System.nanoTime();
+        SHARED_CLIENT.newCall(request).enqueue(new Callback() {
+            @Override
+            public void onFailure(Call call, IOException e) {
+                long latency = System.nanoTime() - startedAt;
+                concurrencyLimiter.onSample(latency, true);
+                circuitBreaker.onResult(false, latency);
+                result.completeExceptionally(new InferenceException("HuggingFace API call failed: " + e.getMessage(), e));
             }
-            
-            if (jsonNode.isArray() && jsonNode.size() > 0) {
-                JsonNode firstResult = jsonNode.get(0);
-                if (firstResult.has("summary_text")) {
-                    String summary = firstResult.get("summary_text").asText();
-                    if (summary.equals(originalText.trim())) {
-                        logger.debug("Summary equals original text, using fallback");
-                        return generateFallbackSummary(originalText);
-                    }
-                    return summary;
+
+            @Override
+            public void onResponse(Call call, Response response) {
+                int code = response.code();
+                try (response) {
+                    result.complete(readResponse(response));
+                } catch (Exception e) {
+                    result.completeExceptionally(e);
+                } finally {
+                    // Rate limiting and server errors count against the upstream; other 4xx are our fault
+                    long latency = System.nanoTime() - startedAt;
+                    concurrencyLimiter.onSample(latency, code == 429);
+                    circuitBreaker.onResult(code != 429 && code < 500, latency);
                 }
             }
-            
-            if (jsonNode.has("summary_text")) {
-                String summary = jsonNode.get("summary_text").asText();
-                if (summary.equals(originalText.trim())) {
-                    logger.debug("Summary equals original text, using fallback");
-                    return generateFallbackSummary(originalText);
-                }
-                return summary;
+        });
+        return result;
+    }
+
+    private JsonNode readResponse(Response response) throws IOException {
+        logger.debug("HuggingFace API response code: {}", response.code());
+        
+        ResponseBody responseBody = response.body();
+        if (responseBody == null) {
+            throw new InferenceException("HuggingFace API returned null response body");
+        }
+        
+        // Always consume the body to allow connection reuse
+        String responseBodyString = responseBody.string();
+        JsonNode jsonNode = parseJson(responseBodyString);
+        
+        if (jsonNode != null && jsonNode.has("error")) {
+            String errorMsg = jsonNode.get("error").asText();
+            logger.warn("HuggingFace API error: {}", errorMsg);
+            if (errorMsg.contains("currently loading")) {
+                throw new ModelLoadingException(errorMsg, estimatedLoadTime(jsonNode));
             }
-            
-            logger.warn("Unexpected response format from HuggingFace API");
-            return generateFallbackSummary(originalText);
-            
+            throw new InferenceException(errorMsg);
+        }
+        if (!response.isSuccessful()) {
+            throw new InferenceException("HuggingFace API error: " + response.code() + " - " + response.message());
+        }
+        if (jsonNode == null) {
+            throw new InferenceException("Unreadable response from HuggingFace API");
+        }
+        return jsonNode;
+    }
+
+    private static Duration estimatedLoadTime(JsonNode error) {
+        double seconds = error.path("estimated_time").asDouble(0);
+        return seconds > 0 ? Duration.ofMillis((long) (seconds * 1000)) : DEFAULT_MODEL_LOAD_WAIT;
+    }
+
+    private JsonNode parseJson(String responseBody) {
+        try {
+            return objectMapper.readTree(responseBody);
         } catch (Exception e) {
-            logger.error("Error parsing HuggingFace response", e);
-            return generateFallbackSummary(originalText);
+            logger.debug("Error parsing HuggingFace response", e);
+            return null;
         }
     }
-    
-    private String truncateText(String text, int maxLength) {
-        if (text.length() <= maxLength) {
-            return text;
+
+    /**
+     * Reads summary_text from a single result, which the API returns either bare
+     * or wrapped in a one-element array.
+     */
+    private String extractSummary(JsonNode result) {
+        if (result == null) {
+            return null;
         }
-        
-        String truncated = text.substring(0, maxLength);
-        int lastSpace = truncated.lastIndexOf(' ');
-        if (lastSpace > maxLength * 0.8) { 
-            truncated = truncated.substring(0, lastSpace);
+        if (result.isArray()) {
+            return result.size() > 0 ? extractSummary(result.get(0)) : null;
         }
-        
-        return truncated + "...";
+        if (result.has("summary_text")) {
+            String summary = result.get("summary_text").asText();
+            return summary.isBlank() ? null : summary;
+        }
+        return null;
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
     }
     
+    /**
+     * Builds the fallback summary on the task executor: this runs as an HTTP callback, and
+     * the keyword extractor may query the document frequencies on a cache miss.
+     */
+    private CompletableFuture<String> fallbackSummaryAsync(String text) {
+        return CompletableFuture.supplyAsync(() -> generateFallbackSummary(text), taskExecutor);
+    }
+
     private String generateFallbackSummary(String text) {
         try {
-            String cleanText = text.trim().replaceAll("\\s+", " ");
-            String[] sentences = cleanText.split("\\. ");
-            
-            if (sentences.length <= 1) {
-                if (cleanText.length() < 50) {
-                    return "📝 Short note: " + cleanText;
-                } else {
-                    return "📝 " + (cleanText.length() > 100 ? 
-                           cleanText.substring(0, 97) + "..." : cleanText);
-                }
-            }
-            
-            StringBuilder summary = new StringBuilder("📝 Summary: ");
-            int sentenceCount = Math.min(2, sentences.length);
-            
-            for (int i = 0; i < sentenceCount; i++) {
-                String sentence = sentences[i].trim();
-                if (!sentence.isEmpty()) {
-                    summary.append(sentence);
-                    if (!sentence.endsWith(".")) {
-                        summary.append(".");
-                    }
-                    if (i < sentenceCount - 1) {
-                        summary.append(" ");
-                    }
-                }
-            }
-            
-            String keywords = extractKeywords(cleanText);
-            if (!keywords.isEmpty()) {
-                summary.append(" [Key topics: ").append(keywords).append("]");
-            }
-            
-            return summary.toString();
-            
+            return fallbackSummarizer.summarize(text);
         } catch (Exception e) {
+            logger.debug("Error generating fallback summary", e);
             return "📝 " + (text.length() > 100 ? text.substring(0, 97) + "..." : text) + 
                    " [Fallback summary]";
         }
     }
-    
-    private String extractKeywords(String text) {
-        try {
-            // Early return for very short texts
-            if (text == null || text.length() < 10) {
-                return "";
-            }
-            
-            String[] words = text.toLowerCase()
-                    .replaceAll("[^a-zA-Z0-9\\s]", "")
-                    .split("\\s+");
-            
-            // Estimate initial capacity to reduce HashMap resizing
-            int estimatedSize = Math.min(words.length / 2, 50);
-            Map<String, Integer> wordCount = new HashMap<>(estimatedSize);
-            
-            // Single pass through words array - O(n) complexity
-            for (String word : words) {
-                if (word != null && word.length() > 3) { 
-                    wordCount.merge(word, 1, Integer::sum);
-                }
-            }
-            
-            // Early return if no keywords found
-            if (wordCount.isEmpty()) {
-                return "";
-            }
-            
-            // Stream processing - limit to top 3 keywords
-            return wordCount.entrySet().stream()
-                    .sorted((e1, e2) -> Integer.compare(e2.getValue(), e1.getValue()))
-                    .limit(3)
-                    .map(Map.Entry::getKey)
-                    .reduce((a, b) -> a + ", " + b)
-                    .orElse("");
-                    
-        } catch (Exception e) {
-            logger.debug("Error extracting keywords", e);
-            return "";
-        }
-    }
-}
\ No newline at end of file
+}
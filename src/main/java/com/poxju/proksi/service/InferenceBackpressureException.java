@@ -0,0 +1,14 @@
+package com.poxju.proksi.service;
+
+import java.time.Duration;
+
+/**
+ * Signals that the limit of outstanding HuggingFace requests has been reached.
+ * The request was not sent; callers should retry later rather than queue more work.
+ */
+public class InferenceBackpressureException extends InferenceException {
+
+    public InferenceBackpressureException(int limit) {
+        super("HuggingFace API request limit reached (" + limit + " outstanding)", Duration.ZERO);
+    }
+}
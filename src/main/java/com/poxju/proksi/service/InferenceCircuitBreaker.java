@@ -0,0 +1,171 @@
+package com.poxju.proksi.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+/**
+ * Count-based circuit breaker for the inference endpoint.
+ * Outcomes of the last {@code windowSize} calls are kept in a ring buffer; the circuit opens
+ * when the failure rate or the slow-call rate crosses its threshold. While open, calls are
+ * rejected immediately. After {@code openDuration} a few probe calls are let through
+ * (half-open): if they all succeed quickly the circuit closes, otherwise it opens again.
+ */
+class InferenceCircuitBreaker {
+
+    enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private static final Logger logger = LoggerFactory.getLogger(InferenceCircuitBreaker.class);
+
+    private final int windowSize;
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final double slowCallRateThreshold;
+    private final long slowCallNanos;
+    private final long openNanos;
+    private final int halfOpenProbes;
+    private final LongSupplier nanoClock;
+
+    private final boolean[] failedCalls;
+    private final boolean[] slowCalls;
+    private int position;
+    private int recordedCalls;
+    private int failureCount;
+    private int slowCount;
+
+    private State state = State.CLOSED;
+    private long openedAt;
+    private int probesInFlight;
+    private int probeSuccesses;
+
+    InferenceCircuitBreaker(int windowSize, int minimumCalls, double failureRateThreshold,
+                            double slowCallRateThreshold, Duration slowCallDuration,
+                            Duration openDuration, int halfOpenProbes, LongSupplier nanoClock) {
+        this.windowSize = Math.max(1, windowSize);
+        this.minimumCalls = Math.max(1, Math.min(minimumCalls, this.windowSize));
+        this.failureRateThreshold = failureRateThreshold;
+        this.slowCallRateThreshold = slowCallRateThreshold;
+        this.slowCallNanos = slowCallDuration.toNanos();
+        this.openNanos = openDuration.toNanos();
+        this.halfOpenProbes = Math.max(1, halfOpenProbes);
+        this.nanoClock = nanoClock;
+        this.failedCalls = new boolean[this.windowSize];
+        this.slowCalls = new boolean[this.windowSize];
+    }
+
+    /**
+     * Returns whether a call may proceed. Every granted permission must be followed by
+     * {@link #onResult} or {@link #releasePermission}.
+     */
+    synchronized boolean tryAcquirePermission() {
+        if (state == State.OPEN) {
+            if (nanoClock.getAsLong() - openedAt < openNanos) {
+                return false;
+            }
+            state = State.HALF_OPEN;
+            probesInFlight = 0;
+            probeSuccesses = 0;
+        }
+        if (state == State.HALF_OPEN) {
+            if (probesInFlight >= halfOpenProbes) {
+                return false;
+            }
+            probesInFlight++;
+        }
+        return true;
+    }
+
+    /**
+     * Returns a permission that was not used for a call.
+     */
+    synchronized void releasePermission() {
+        if (state == State.HALF_OPEN && probesInFlight > 0) {
+            probesInFlight--;
+        }
+    }
+
+    synchronized void onResult(boolean success, long latencyNanos) {
+        boolean slow = latencyNanos >= slowCallNanos;
+        switch (state) {
+            case HALF_OPEN -> {
+                probesInFlight = Math.max(0, probesInFlight - 1);
+                if (!success || slow) {
+                    open();
+                } else if (++probeSuccesses >= halfOpenProbes) {
+                    close();
+                }
+            }
+            case CLOSED -> {
+                record(!success, slow);
+                if (recordedCalls >= minimumCalls
+                        && (rate(failureCount) >= failureRateThreshold || rate(slowCount) >= slowCallRateThreshold)) {
+                    open();
+                }
+            }
+            case OPEN -> {
+                // Result of a call started before the circuit opened; nothing to decide
+            }
+        }
+    }
+
+    synchronized State getState() {
+        return state;
+    }
+
+    synchronized Duration remainingOpenTime() {
+        if (state != State.OPEN) {
+            return Duration.ZERO;
+        }
+        return Duration.ofNanos(Math.max(0, openNanos - (nanoClock.getAsLong() - openedAt)));
+    }
+
+    private void record(boolean failed, boolean slow) {
+        if (recordedCalls == windowSize) {
+            if (failedCalls[position]) {
+                failureCount--;
+            }
+            if (slowCalls[position]) {
+                slowCount--;
+            }
+        } else {
+            recordedCalls++;
+        }
+        failedCalls[position] = failed;
+        slowCalls[position] = slow;
+        if (failed) {
+            failureCount++;
+        }
+        if (slow) {
+            slowCount++;
+        }
+        position = (position + 1) % windowSize;
+    }
+
+    private double rate(int count) {
+        return (double) count / recordedCalls;
+    }
+
+    private void open() {
+        if (state == State.CLOSED) {
+            logger.warn("Inference circuit opened: {} of {} recent calls failed, {} were slow",
+                    failureCount, recordedCalls, slowCount);
+        } else {
+            logger.warn("Inference circuit re-opened after a failed probe");
+        }
+        state = State.OPEN;
+        openedAt = nanoClock.getAsLong();
+        probesInFlight = 0;
+        probeSuccesses = 0;
+    }
+
+    private void close() {
+        logger.info("Inference circuit closed");
+        state = State.CLOSED;
+        position = 0;
+        recordedCalls = 0;
+        failureCount = 0;
+        slowCount = 0;
+    }
+}
@@ -0,0 +1,35 @@
+package com.poxju.proksi.service;
+
+import java.time.Duration;
+
+/**
+ * Raised when the HuggingFace inference API rejects or fails a request.
+ * A non-null {@link #getRetryAfter()} marks a transient condition worth retrying
+ * after that delay instead of falling back to a local summary.
+ */
+public class InferenceException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    public InferenceException(String message) {
+        this(message, (Duration) null);
+    }
+
+    public InferenceException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    public InferenceException(String message, Throwable cause) {
+        super(message, cause);
+        this.retryAfter = null;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+
+    public boolean isRetryable() {
+        return retryAfter != null;
+    }
+}
@@ -0,0 +1,13 @@
+package com.poxju.proksi.service;
+
+import java.time.Duration;
+
+/**
+ * The inference circuit breaker is open, so the request was rejected without calling the API.
+ */
+public class InferenceUnavailableException extends InferenceException {
+
+    public InferenceUnavailableException(Duration retryAfter) {
+        super("HuggingFace API circuit is open; retry in " + retryAfter.toSeconds() + "s", retryAfter);
+    }
+}
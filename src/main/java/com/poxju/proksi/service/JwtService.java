@@ -1,8 +1,13 @@
 package com.poxju.proksi.service;
 
-import java.security.Key;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Base64;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.UUID;
 import java.util.function.Function;
 
 import javax.crypto.SecretKey;
@@ -12,27 +17,51 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import com.poxju.proksi.model.User;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
-
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Issues and verifies JWTs. The signing key and parser are built once; the claims of a
+ * verified token are cached under a digest of the token until the token expires, so a
+ * token presented on every request has its signature checked once.
+ */
 @Service
 public class JwtService {
 
-    private final String secretKey;
+    // Claims that let a request be authenticated from the token alone (auth.stateless)
+    public static final String ROLE_CLAIM = "role";
+    public static final String USER_ID_CLAIM = "uid";
+    public static final String TOKEN_VERSION_CLAIM = "ver";
+
     private final long expirationMs;
-    
-    // Cache the signing key to avoid repeated decoding
-    private Key cachedSigningKey;
-    
+    private final SecretKey signingKey;
+    private final JwtParser parser;
+    private final Cache<String, Claims> verifiedClaims;
+
     public JwtService(
+            MeterRegistry meterRegistry,
             @Value("${JWT_SECRET}") String secretKey,
-            @Value("${JWT_EXPIRATION_MS:86400000}") long expirationMs) {
-        this.secretKey = secretKey;
+            @Value("${JWT_EXPIRATION_MS:86400000}") long expirationMs,
+            @Value("${jwt.cache.max-entries:10000}") long maxCachedTokens) {
         this.expirationMs = expirationMs; // Default: 24 hours (86400000 ms)
+        this.signingKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(secretKey));
+        this.parser = Jwts.parser().verifyWith(signingKey).build();
+        this.verifiedClaims = Caffeine.newBuilder()
+                .maximumSize(maxCachedTokens)
+                .expireAfter(Expiry.creating((String digest, Claims claims) -> untilExpiration(claims)))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, verifiedClaims, "jwtClaims");
     }
 
     public String extractUsername(String token){
@@ -45,7 +74,12 @@ public class JwtService {
     }
 
     public String generateToken(UserDetails userDetails){
-        return generateToken(new HashMap<>(), userDetails);
+        User user = (User) userDetails;
+        HashMap<String, Object> claims = new HashMap<>();
+        claims.put(ROLE_CLAIM, user.getRole().name());
+        claims.put(USER_ID_CLAIM, user.getId());
+        claims.put(TOKEN_VERSION_CLAIM, user.getTokenVersion());
+        return generateToken(claims, userDetails);
     }
     public String generateToken(
         HashMap<String, Object> extraClaims,
@@ -53,10 +87,11 @@ public class JwtService {
     ){
         return Jwts.builder()
             .claims(extraClaims)
+            .id(UUID.randomUUID().toString())
             .subject(((User) userDetails).getEmail())
             .issuedAt(new Date(System.currentTimeMillis()))
             .expiration(new Date(System.currentTimeMillis() + expirationMs))
-            .signWith((Key)getSignInKey())
+            .signWith(signingKey)
             .compact();
     }
     public String generateToken(Authentication authentication) {
@@ -64,13 +99,12 @@ public class JwtService {
         Date currentDate = new Date();
         Date expireDate = new Date(currentDate.getTime() + expirationMs);
 
-        Key key = (Key)getSignInKey();
-
         return Jwts.builder()
+                .id(UUID.randomUUID().toString())
                 .subject(email)
                 .issuedAt(new Date())
                 .expiration(expireDate)
-                .signWith(key)
+                .signWith(signingKey)
                 .compact();
     }
 
@@ -87,25 +121,30 @@ public class JwtService {
         return extractClaim(token, Claims::getExpiration);
     }
     
+    /**
+     * Verifies the token on first sight and returns its claims from the cache afterwards.
+     * Invalid tokens are not cached; parsing them throws as before.
+     */
     private Claims extractAllClaims(String token){
-        return Jwts.parser()
-            .verifyWith((SecretKey) getSignInKey())
-            .build()
-            .parseSignedClaims(token)
-            .getPayload();
+        return verifiedClaims.get(digest(token), digest -> parser.parseSignedClaims(token).getPayload());
     }
 
-    private Key getSignInKey() {
-        // Cache the key to avoid repeated decoding on every request
-        if (cachedSigningKey == null) {
-            synchronized (this) {
-                if (cachedSigningKey == null) {
-                    byte[] keyBytes = Decoders.BASE64.decode(secretKey); // Base64 decode
-                    cachedSigningKey = Keys.hmacShaKeyFor(keyBytes);
-                }
-            }
+    private Duration untilExpiration(Claims claims) {
+        Date expiration = claims.getExpiration();
+        if (expiration == null) {
+            return Duration.ZERO;
         }
-        return cachedSigningKey;
+        long remainingMs = expiration.getTime() - System.currentTimeMillis();
+        return Duration.ofMillis(Math.max(0, Math.min(remainingMs, expirationMs)));
     }
 
+    // The cache holds digests rather than the bearer tokens themselves
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
 }
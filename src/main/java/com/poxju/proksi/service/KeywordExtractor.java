@@ -0,0 +1,181 @@
+package com.poxju.proksi.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Picks the key topics of a text by TF-IDF against the note corpus.
+ * Candidates are the most frequent non-stopword terms of the text, selected with a bounded
+ * heap; only those are looked up in the document-frequency index and rescored, again with a
+ * bounded heap, so neither step sorts the whole vocabulary. With an empty index every term
+ * weighs the same and the result is plain term frequency.
+ */
+class KeywordExtractor {
+
+    static final int MIN_TERM_LENGTH = 4;
+    static final int MAX_TERM_LENGTH = 64;
+    private static final int CANDIDATES = 32;
+
+    private static final Set<String> STOPWORDS = Set.of(
+            "about", "after", "again", "also", "been", "before", "being", "both", "could", "does",
+            "doing", "down", "each", "from", "further", "have", "having", "here", "into", "just",
+            "more", "most", "much", "must", "once", "only", "other", "over", "same", "should",
+            "some", "such", "than", "that", "their", "theirs", "them", "then", "there", "these",
+            "they", "this", "those", "through", "under", "until", "very", "were", "what", "when",
+            "where", "which", "while", "will", "with", "would", "your", "yours");
+
+    private final DocumentFrequencies documentFrequencies;
+
+    KeywordExtractor(DocumentFrequencies documentFrequencies) {
+        this.documentFrequencies = documentFrequencies;
+    }
+
+    static boolean isStopword(String term) {
+        return STOPWORDS.contains(term);
+    }
+
+    /**
+     * Counts the indexable terms of a text: runs of letters and digits of a usable length.
+     */
+    static TermCounter countTerms(CharSequence text) {
+        TermCounter terms = new TermCounter(Math.max(16, Math.min(text.length() / 40, 1 << 16)));
+        int tokenStart = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            if (i < text.length() && Character.isLetterOrDigit(text.charAt(i))) {
+                if (tokenStart < 0) {
+                    tokenStart = i;
+                }
+            } else if (tokenStart >= 0) {
+                int length = i - tokenStart;
+                if (length >= MIN_TERM_LENGTH && length <= MAX_TERM_LENGTH) {
+                    terms.add(text, tokenStart, i);
+                }
+                tokenStart = -1;
+            }
+        }
+        return terms;
+    }
+
+    /**
+     * Returns up to {@code k} key topics, best first.
+     *
+     * @param excluded per term id, whether the term must not be picked (e.g. stopwords)
+     */
+    List<String> extract(TermCounter terms, boolean[] excluded, int k) {
+        int[] candidates = topK(terms.size(), CANDIDATES,
+                id -> excluded[id] ? Double.NaN : terms.count(id));
+        if (candidates.length == 0) {
+            return List.of();
+        }
+
+        List<String> candidateTerms = new ArrayList<>(candidates.length);
+        for (int id : candidates) {
+            candidateTerms.add(terms.term(id));
+        }
+        long totalDocuments;
+        Map<String, Long> documentCounts;
+        try {
+            totalDocuments = documentFrequencies.totalDocuments();
+            documentCounts = totalDocuments > 0 ? documentFrequencies.documentCounts(candidateTerms) : Map.of();
+        } catch (Exception e) {
+            // Keywords are best effort; without corpus statistics fall back to term frequency
+            totalDocuments = 0;
+            documentCounts = Map.of();
+        }
+
+        double[] scores = new double[candidates.length];
+        for (int i = 0; i < candidates.length; i++) {
+            long documents = documentCounts.getOrDefault(candidateTerms.get(i), 0L);
+            double idf = Math.log((totalDocuments + 1.0) / (documents + 1.0)) + 1.0;
+            scores[i] = (1.0 + Math.log(terms.count(candidates[i]))) * idf;
+        }
+
+        int[] best = topK(candidates.length, k, i -> scores[i]);
+        List<String> keywords = new ArrayList<>(best.length);
+        for (int i : best) {
+            keywords.add(candidateTerms.get(i));
+        }
+        return keywords;
+    }
+
+    interface Score {
+        /** Score of an item, or NaN to skip it. */
+        double of(int item);
+    }
+
+    /**
+     * Returns the {@code k} best-scoring items of {@code 0..n-1}, best first, using a
+     * min-heap of size {@code k}. Ties go to the lower index.
+     */
+    static int[] topK(int n, int k, Score score) {
+        int[] heap = new int[Math.max(0, Math.min(k, n))];
+        double[] keys = new double[heap.length];
+        int size = 0;
+        for (int item = 0; item < n && heap.length > 0; item++) {
+            double value = score.of(item);
+            if (Double.isNaN(value)) {
+                continue;
+            }
+            if (size < heap.length) {
+                heap[size] = item;
+                keys[size] = value;
+                siftUp(heap, keys, size++);
+            } else if (worse(keys[0], heap[0], value, item)) {
+                heap[0] = item;
+                keys[0] = value;
+                siftDown(heap, keys, size);
+            }
+        }
+        // Drain the heap, worst first, into the result from the back
+        int[] result = new int[size];
+        for (int i = size - 1; i >= 0; i--) {
+            result[i] = heap[0];
+            heap[0] = heap[i];
+            keys[0] = keys[i];
+            siftDown(heap, keys, i);
+        }
+        return result;
+    }
+
+    private static boolean worse(double key, int item, double otherKey, int otherItem) {
+        return key < otherKey || (key == otherKey && item > otherItem);
+    }
+
+    private static void siftUp(int[] heap, double[] keys, int index) {
+        while (index > 0) {
+            int parent = (index - 1) / 2;
+            if (!worse(keys[index], heap[index], keys[parent], heap[parent])) {
+                return;
+            }
+            swap(heap, keys, index, parent);
+            index = parent;
+        }
+    }
+
+    private static void siftDown(int[] heap, double[] keys, int size) {
+        int index = 0;
+        while (true) {
+            int left = 2 * index + 1;
+            if (left >= size) {
+                return;
+            }
+            int child = left + 1 < size && worse(keys[left + 1], heap[left + 1], keys[left], heap[left]) ? left + 1 : left;
+            if (!worse(keys[child], heap[child], keys[index], heap[index])) {
+                return;
+            }
+            swap(heap, keys, index, child);
+            index = child;
+        }
+    }
+
+    private static void swap(int[] heap, double[] keys, int a, int b) {
+        int item = heap[a];
+        heap[a] = heap[b];
+        heap[b] = item;
+        double key = keys[a];
+        keys[a] = keys[b];
+        keys[b] = key;
+    }
+}
@@ -0,0 +1,128 @@
+package com.poxju.proksi.service;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Summarizes text longer than one model input by map-reduce.
+ * The text is split into chunks that are summarized concurrently, at most
+ * {@code parallelism} at a time; the joined chunk summaries are then summarized again,
+ * chunking recursively while they still do not fit one input. Each tree level costs about
+ * one round trip, since the chunks of a level go out together and are batched.
+ *
+ * If the summaries still do not fit after {@code maxDepth} levels, i.e. the model is not
+ * shrinking them, the last pass takes the start of every chunk, each cut to an even share
+ * of one input, so the summary still covers the whole text. Such passes are logged.
+ */
+class MapReduceSummarizer {
+
+    private static final Logger logger = LoggerFactory.getLogger(MapReduceSummarizer.class);
+    private static final String SEPARATOR = "\n\n";
+
+    private final TextChunker chunker;
+    private final Function<String, CompletableFuture<String>> summarizer;
+    private final int parallelism;
+    private final int maxDepth;
+
+    MapReduceSummarizer(TextChunker chunker, Function<String, CompletableFuture<String>> summarizer,
+                        int parallelism, int maxDepth) {
+        this.chunker = chunker;
+        this.summarizer = summarizer;
+        this.parallelism = Math.max(1, parallelism);
+        this.maxDepth = Math.max(1, maxDepth);
+    }
+
+    boolean needsChunking(String text) {
+        return text.strip().length() > chunker.getMaxChunkChars();
+    }
+
+    CompletableFuture<String> summarize(String text) {
+        return summarize(text.strip(), 0);
+    }
+
+    private CompletableFuture<String> summarize(String text, int depth) {
+        List<String> chunks = chunker.split(text);
+        if (chunks.size() == 1) {
+            return summarizer.apply(chunks.get(0));
+        }
+        if (depth >= maxDepth) {
+            String condensed = condense(chunks);
+            logger.warn("Summaries still {} chars after {} reduce levels; cut {} chunks to {} chars for a last pass",
+                    text.length(), depth, chunks.size(), condensed.length());
+            return summarizer.apply(condensed);
+        }
+        return mapBounded(chunks).thenCompose(summaries -> summarize(String.join(SEPARATOR, summaries), depth + 1));
+    }
+
+    /**
+     * Joins the start of every chunk, each cut at a word boundary to an even share of one input.
+     */
+    private String condense(List<String> chunks) {
+        int budget = chunker.getMaxChunkChars() - SEPARATOR.length() * (chunks.size() - 1);
+        int share = Math.max(1, budget / chunks.size());
+        StringBuilder condensed = new StringBuilder(chunker.getMaxChunkChars());
+        for (String chunk : chunks) {
+            String piece = chunk;
+            if (piece.length() > share) {
+                int cut = piece.lastIndexOf(' ', share);
+                piece = piece.substring(0, cut > share / 2 ? cut : share);
+            }
+            if (condensed.length() + (condensed.isEmpty() ? 0 : SEPARATOR.length()) + piece.length()
+                    > chunker.getMaxChunkChars()) {
+                break;
+            }
+            if (!condensed.isEmpty()) {
+                condensed.append(SEPARATOR);
+            }
+            condensed.append(piece.strip());
+        }
+        return condensed.toString();
+    }
+
+    /**
+     * Summarizes every chunk with at most {@code parallelism} requests outstanding and
+     * completes with the summaries in chunk order, or with the first failure.
+     */
+    private CompletableFuture<List<String>> mapBounded(List<String> chunks) {
+        String[] summaries = new String[chunks.size()];
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger remaining = new AtomicInteger(chunks.size());
+        CompletableFuture<List<String>> result = new CompletableFuture<>();
+        int lanes = Math.min(parallelism, chunks.size());
+        for (int i = 0; i < lanes; i++) {
+            runNext(chunks, summaries, next, remaining, result);
+        }
+        return result;
+    }
+
+    private void runNext(List<String> chunks, String[] summaries, AtomicInteger next,
+                         AtomicInteger remaining, CompletableFuture<List<String>> result) {
+        int index = next.getAndIncrement();
+        if (index >= chunks.size() || result.isDone()) {
+            return;
+        }
+        CompletableFuture<String> summary;
+        try {
+            summary = summarizer.apply(chunks.get(index));
+        } catch (Exception e) {
+            summary = CompletableFuture.failedFuture(e);
+        }
+        summary.whenComplete((text, error) -> {
+            if (error != null) {
+                result.completeExceptionally(error);
+                return;
+            }
+            summaries[index] = text;
+            if (remaining.decrementAndGet() == 0) {
+                result.complete(List.of(summaries));
+            } else {
+                runNext(chunks, summaries, next, remaining, result);
+            }
+        });
+    }
+}
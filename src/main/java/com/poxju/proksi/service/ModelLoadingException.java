@@ -0,0 +1,14 @@
+package com.poxju.proksi.service;
+
+import java.time.Duration;
+
+/**
+ * The model is cold and being loaded by the inference API.
+ * Carries the API's {@code estimated_time} so the request can be retried once the model is up.
+ */
+public class ModelLoadingException extends InferenceException {
+
+    public ModelLoadingException(String message, Duration estimatedTime) {
+        super(message, estimatedTime);
+    }
+}
@@ -0,0 +1,148 @@
+package com.poxju.proksi.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.poxju.proksi.model.User;
+import com.poxju.proksi.repository.NoteRateLimitRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Admission control for note creation.
+ *
+ * Each user has a token bucket of {@code notes.rate-limit.capacity} notes, refilled at
+ * {@code notes.rate-limit.refill-per-minute}; a note created with the bucket empty is
+ * rejected with 429 and Retry-After. Buckets live in memory on each instance, or with
+ * {@code notes.rate-limit.store=postgres} in note_rate_limits, shared by all instances.
+ *
+ * Notes within the limit are always saved, but while more than {@code notes.shedding.backlog}
+ * summary jobs are due their summaries are deferred by about {@code notes.shedding.delay-ms},
+ * so the workers catch up on the backlog instead of it growing. Rejections are counted as
+ * {@code notes.create.throttled}, deferrals as {@code notes.create.deferred}.
+ */
+@Component
+public class NoteAdmission {
+
+    private static final Logger logger = LoggerFactory.getLogger(NoteAdmission.class);
+    private static final int PURGE_BATCH_SIZE = 1000;
+
+    private final NoteRateLimitRepository rateLimitRepository;
+    private final SummaryJobService summaryJobService;
+    private final boolean shared;
+    private final TokenBuckets buckets;
+    private final long tokenMs;
+    private final long capacityMs;
+    private final int shedBacklog;
+    private final long shedDelayMs;
+    private final Counter throttled;
+    private final Counter deferred;
+
+    private volatile boolean shedding;
+
+    public NoteAdmission(
+            NoteRateLimitRepository rateLimitRepository,
+            SummaryJobService summaryJobService,
+            MeterRegistry meterRegistry,
+            @Value("${notes.rate-limit.store:memory}") String store,
+            @Value("${notes.rate-limit.capacity:20}") int capacity,
+            @Value("${notes.rate-limit.refill-per-minute:10}") int refillPerMinute,
+            @Value("${notes.rate-limit.max-keys:100000}") long maxKeys,
+            @Value("${notes.shedding.backlog:1000}") int shedBacklog,
+            @Value("${notes.shedding.delay-ms:600000}") long shedDelayMs) {
+        this.rateLimitRepository = rateLimitRepository;
+        this.summaryJobService = summaryJobService;
+        this.shared = "postgres".equalsIgnoreCase(store);
+        this.buckets = shared ? null : new TokenBuckets(capacity, refillPerMinute, maxKeys);
+        this.tokenMs = Duration.ofMinutes(1).toMillis() / Math.max(1, refillPerMinute);
+        this.capacityMs = tokenMs * Math.max(1, capacity);
+        this.shedBacklog = shedBacklog;
+        this.shedDelayMs = shedDelayMs;
+        this.throttled = meterRegistry.counter("notes.create.throttled");
+        this.deferred = meterRegistry.counter("notes.create.deferred");
+        meterRegistry.gauge("notes.shedding.active", this, admission -> admission.shedding ? 1 : 0);
+    }
+
+    /**
+     * Takes a token from the user's bucket.
+     *
+     * @throws NoteCreationThrottledException if the bucket is empty
+     */
+    public void acquire(User user) {
+        long waitMs = shared
+                ? rateLimitRepository.tryAcquire(user.getId(), tokenMs, capacityMs)
+                : buckets.tryAcquire(String.valueOf(user.getId()));
+        if (waitMs > 0) {
+            throttled.increment();
+            logger.debug("Note creation throttled for user {} for {} ms", user.getId(), waitMs);
+            throw new NoteCreationThrottledException(Math.max(1, (waitMs + 999) / 1000));
+        }
+    }
+
+    /**
+     * When the summary of a new note should run: null for now, or a later time while
+     * summarization is overloaded. Deferred jobs are spread over half a delay, so they do
+     * not all come due together.
+     */
+    public LocalDateTime summaryRunAt() {
+        if (!shedding) {
+            return null;
+        }
+        deferred.increment();
+        long delayMs = shedDelayMs + ThreadLocalRandom.current().nextLong(shedDelayMs / 2 + 1);
+        return LocalDateTime.now().plus(Duration.ofMillis(delayMs));
+    }
+
+    /**
+     * Starts deferring summaries once the due backlog reaches {@code notes.shedding.backlog},
+     * and stops once it is back under half of that.
+     */
+    @Scheduled(
+            initialDelayString = "${notes.shedding.check-interval-ms:5000}",
+            fixedDelayString = "${notes.shedding.check-interval-ms:5000}")
+    public void checkBacklog() {
+        if (shedBacklog <= 0) {
+            return;
+        }
+        try {
+            long due = summaryJobService.dueCount(shedBacklog);
+            if (!shedding && due >= shedBacklog) {
+                shedding = true;
+                logger.warn("Summary backlog of {}+ due jobs: deferring summaries of new notes", due);
+            } else if (shedding && due < shedBacklog / 2) {
+                shedding = false;
+                logger.info("Summary backlog down to {} due jobs: summarizing new notes immediately", due);
+            }
+        } catch (Exception e) {
+            logger.error("Error checking the summary backlog", e);
+        }
+    }
+
+    /**
+     * Deletes shared buckets that are full again; they are equivalent to no bucket.
+     */
+    @Scheduled(
+            initialDelayString = "${notes.rate-limit.purge-interval-ms:600000}",
+            fixedDelayString = "${notes.rate-limit.purge-interval-ms:600000}")
+    public void purge() {
+        if (!shared) {
+            return;
+        }
+        try {
+            int batch;
+            do {
+                batch = rateLimitRepository.deleteFull(PURGE_BATCH_SIZE);
+            } while (batch == PURGE_BATCH_SIZE);
+        } catch (Exception e) {
+            logger.error("Error purging note rate limits", e);
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package com.poxju.proksi.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.poxju.proksi.model.Note;
+import com.poxju.proksi.repository.NoteBlobRepository;
+import com.poxju.proksi.repository.NoteBlobRepository.InlineNote;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Keeps large note bodies out of the notes table. A body above the inline limit is
+ * deflate-compressed into note_blobs under the SHA-256 of its bytes, so identical pastes
+ * share one blob; the note row keeps a short preview and the hash. Full bodies are only
+ * read, and inflated as they stream in, when a note is opened, summarized or indexed.
+ */
+@Component
+public class NoteContentStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(NoteContentStore.class);
+    private static final String CODEC = "deflate";
+    // Inline part of an out-of-line body; comfortably above the list preview
+    static final int PREVIEW_CHARS = 1000;
+
+    private final NoteBlobRepository blobRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int minBlobBytes;
+    private final int migrationBatchSize;
+    private volatile boolean inlineBodiesMigrated;
+
+    public NoteContentStore(
+            NoteBlobRepository blobRepository,
+            PlatformTransactionManager transactionManager,
+            @Value("${notes.blob.min-bytes:4096}") int minBlobBytes,
+            @Value("${notes.blob.migration-batch-size:100}") int migrationBatchSize) {
+        this.blobRepository = blobRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // A body over 4 bytes per preview char is always longer than its preview
+        this.minBlobBytes = Math.max(minBlobBytes, PREVIEW_CHARS * 4);
+        this.migrationBatchSize = Math.max(1, migrationBatchSize);
+    }
+
+    /**
+     * Prepares a new note's body: large bodies are written to the blob store and the note
+     * keeps a preview. Call {@link #afterInsert} once the note has an id.
+     */
+    public void assign(Note note, String content) {
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length <= minBlobBytes) {
+            note.setContent(content);
+            return;
+        }
+        note.setContent(preview(content));
+        note.setContentHash(put(bytes));
+    }
+
+    /**
+     * Indexes the full body of an out-of-line note for search; the generated search
+     * column only sees the preview otherwise.
+     */
+    public void afterInsert(Note note, String content) {
+        if (note.getContentHash() != null) {
+            blobRepository.updateBodyVector(note.getId(), content);
+        }
+    }
+
+    public String read(Note note) {
+        return read(note.getContent(), note.getContentHash());
+    }
+
+    /**
+     * Returns the full body of a note given its row values.
+     *
+     * @throws IllegalStateException if the body is missing from the blob store; the inline
+     *         preview is never handed out in its place
+     */
+    public String read(String inlineContent, byte[] contentHash) {
+        if (contentHash == null) {
+            return inlineContent;
+        }
+        return blobRepository.read(contentHash, (codec, originalLength, data) -> {
+            if (!CODEC.equals(codec)) {
+                throw new IllegalStateException("Unsupported note blob codec: " + codec);
+            }
+            StringBuilder body = new StringBuilder(originalLength);
+            char[] buffer = new char[8192];
+            try (Reader reader = new InputStreamReader(new InflaterInputStream(data), StandardCharsets.UTF_8)) {
+                int read;
+                while ((read = reader.read(buffer)) > 0) {
+                    body.append(buffer, 0, read);
+                }
+            }
+            return body.toString();
+        }).orElseThrow(() -> new IllegalStateException(
+                "Body of note is missing from the blob store: " + HexFormat.of().formatHex(contentHash)));
+    }
+
+    /**
+     * Moves large bodies saved before the blob store existed out of line, a batch at a time.
+     * Stops once a sweep finds nothing left; new notes are stored out of line on insert.
+     */
+    @Scheduled(
+            initialDelayString = "${notes.blob.migration-initial-delay-ms:30000}",
+            fixedDelayString = "${notes.blob.migration-interval-ms:10000}")
+    public void moveInlineBodies() {
+        if (inlineBodiesMigrated) {
+            return;
+        }
+        try {
+            Integer moved = transactionTemplate.execute(status -> {
+                List<InlineNote> notes = blobRepository.lockLargeInlineNotes(minBlobBytes, migrationBatchSize);
+                for (InlineNote note : notes) {
+                    byte[] hash = put(note.content().getBytes(StandardCharsets.UTF_8));
+                    blobRepository.moveOutOfLine(note.id(), preview(note.content()), hash, note.content());
+                }
+                return notes.size();
+            });
+            if (moved == null || moved == 0) {
+                inlineBodiesMigrated = true;
+            } else {
+                logger.info("Moved {} large note bodies to the blob store", moved);
+            }
+        } catch (Exception e) {
+            logger.error("Error moving note bodies to the blob store", e);
+        }
+    }
+
+    private byte[] put(byte[] bytes) {
+        byte[] hash = sha256(bytes);
+        blobRepository.insertIfAbsent(hash, CODEC, bytes.length, deflate(bytes));
+        return hash;
+    }
+
+    private static String preview(String content) {
+        int end = Math.min(content.length(), PREVIEW_CHARS);
+        // Do not split a surrogate pair
+        if (end < content.length() && Character.isHighSurrogate(content.charAt(end - 1))) {
+            end--;
+        }
+        return content.substring(0, end);
+    }
+
+    private static byte[] deflate(byte[] bytes) {
+        // Fastest level: bodies are written once per note, on the request path
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, bytes.length / 3));
+        try (DeflaterOutputStream stream = new DeflaterOutputStream(out, deflater)) {
+            stream.write(bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            deflater.end();
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] sha256(byte[] bytes) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(bytes);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
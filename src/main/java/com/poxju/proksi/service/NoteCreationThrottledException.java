@@ -0,0 +1,30 @@
+package com.poxju.proksi.service;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Thrown when a user creates notes faster than their rate limit allows. Answered with 429
+ * and a Retry-After header.
+ */
+public class NoteCreationThrottledException extends ResponseStatusException {
+
+    private final long retryAfterSeconds;
+
+    public NoteCreationThrottledException(long retryAfterSeconds) {
+        super(HttpStatus.TOO_MANY_REQUESTS, "Too many notes created, try again later");
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+
+    @Override
+    public HttpHeaders getHeaders() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        return headers;
+    }
+}
@@ -0,0 +1,182 @@
+package com.poxju.proksi.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.poxju.proksi.api.response.NoteStatusResponse;
+import com.poxju.proksi.model.Role;
+import com.poxju.proksi.model.User;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+import jakarta.annotation.PreDestroy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pushes note status changes to open pages over Server-Sent Events.
+ * Streams are servlet async requests, so an idle stream holds a socket but no thread.
+ * Owners receive events for their own notes, admins for every note. Each write runs on
+ * its own virtual thread, so a stalled client cannot hold up the thread that changed
+ * the note or the other streams; events carry the note's version for clients to order them.
+ * Changes reach the streams of other nodes through the {@link NoteEventRelay}.
+ */
+@Component
+public class NoteEventPublisher {
+
+    private static final Logger logger = LoggerFactory.getLogger(NoteEventPublisher.class);
+    private static final String EVENT_NAME = "note-status";
+
+    private final ConcurrentHashMap<Long, Set<SseEmitter>> userEmitters = new ConcurrentHashMap<>();
+    private final Set<SseEmitter> adminEmitters = ConcurrentHashMap.newKeySet();
+    private final ExecutorService sender = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("note-events-", 0).factory());
+    private final AtomicInteger connections = new AtomicInteger();
+    private final long timeoutMs;
+    private final int maxStreamsPerUser;
+
+    private final NoteEventRelay relay;
+
+    public NoteEventPublisher(
+            NoteEventRelay relay,
+            MeterRegistry meterRegistry,
+            @Value("${notes.events.timeout-ms:1800000}") long timeoutMs,
+            @Value("${notes.events.max-streams-per-user:10}") int maxStreamsPerUser) {
+        this.relay = relay;
+        this.timeoutMs = timeoutMs;
+        this.maxStreamsPerUser = Math.max(1, maxStreamsPerUser);
+        meterRegistry.gauge("notes.events.connections", connections);
+        relay.subscribe(this::deliver);
+    }
+
+    /**
+     * Opens a status stream for the user. The browser's EventSource reconnects on its own
+     * when the stream times out or the connection drops.
+     */
+    public SseEmitter subscribe(User user) {
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        Runnable unregister;
+        if (user.getRole() == Role.ADMIN) {
+            adminEmitters.add(emitter);
+            unregister = () -> adminEmitters.remove(emitter);
+        } else {
+            Long userId = user.getId();
+            userEmitters.compute(userId, (id, emitters) -> {
+                if (emitters == null) {
+                    emitters = ConcurrentHashMap.newKeySet();
+                } else if (emitters.size() >= maxStreamsPerUser) {
+                    throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, "Too many open event streams");
+                }
+                emitters.add(emitter);
+                return emitters;
+            });
+            unregister = () -> userEmitters.computeIfPresent(userId, (id, emitters) -> {
+                emitters.remove(emitter);
+                return emitters.isEmpty() ? null : emitters;
+            });
+        }
+        connections.incrementAndGet();
+
+        AtomicInteger closed = new AtomicInteger();
+        Runnable cleanup = () -> {
+            if (closed.getAndIncrement() == 0) {
+                unregister.run();
+                connections.decrementAndGet();
+            }
+        };
+        emitter.onCompletion(cleanup);
+        emitter.onTimeout(cleanup);
+        emitter.onError(error -> cleanup.run());
+
+        // Flushes the response headers so the browser sees the stream open right away
+        send(emitter, SseEmitter.event().comment("connected"));
+        return emitter;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onNoteStatusChanged(NoteStatusChangedEvent event) {
+        relay.send(event);
+    }
+
+    private void deliver(NoteStatusChangedEvent event) {
+        NoteStatusResponse update = NoteStatusResponse.builder()
+                .id(event.noteId())
+                .status(event.status())
+                .version(event.version())
+                .build();
+
+        Set<SseEmitter> owners = event.userId() != null ? userEmitters.get(event.userId()) : null;
+        if (owners != null) {
+            for (SseEmitter emitter : owners) {
+                send(emitter, statusEvent(update));
+            }
+        }
+        for (SseEmitter emitter : adminEmitters) {
+            send(emitter, statusEvent(update));
+        }
+    }
+
+    /**
+     * Keeps idle streams from being closed by proxies and detects clients that went away.
+     */
+    @Scheduled(fixedRateString = "${notes.events.heartbeat-ms:25000}")
+    public void sendHeartbeats() {
+        for (SseEmitter emitter : allEmitters()) {
+            send(emitter, SseEmitter.event().comment("heartbeat"));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (SseEmitter emitter : allEmitters()) {
+            emitter.complete();
+        }
+        sender.shutdown();
+    }
+
+    private SseEmitter.SseEventBuilder statusEvent(NoteStatusResponse update) {
+        return SseEmitter.event()
+                .name(EVENT_NAME)
+                .id(update.getId() + "-" + update.getVersion())
+                .data(update, MediaType.APPLICATION_JSON);
+    }
+
+    private void send(SseEmitter emitter, SseEmitter.SseEventBuilder event) {
+        try {
+            sender.execute(() -> {
+                try {
+                    emitter.send(event);
+                } catch (Exception e) {
+                    logger.debug("Dropping note event stream: {}", e.getMessage());
+                    try {
+                        emitter.completeWithError(e);
+                    } catch (Exception ignored) {
+                        // Already completed
+                    }
+                }
+            });
+        } catch (Exception e) {
+            logger.debug("Note event not sent: {}", e.getMessage());
+        }
+    }
+
+    private List<SseEmitter> allEmitters() {
+        List<SseEmitter> emitters = new ArrayList<>(adminEmitters);
+        userEmitters.values().forEach(emitters::addAll);
+        return emitters;
+    }
+}
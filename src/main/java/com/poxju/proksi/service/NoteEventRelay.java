@@ -0,0 +1,146 @@
+package com.poxju.proksi.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.annotation.PreDestroy;
+
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Carries note status changes to the {@link NoteEventPublisher} of every node, so a page
+ * gets updates whichever node its stream is connected to and whichever node ran the job.
+ *
+ * With {@code notes.events.relay=postgres} changes are sent with NOTIFY on the
+ * {@value #CHANNEL} channel and each node delivers what it receives on a dedicated LISTEN
+ * connection, outside the connection pool. Changes sent while a node is reconnecting are
+ * missed by its pages until they reload. With the default {@code local}, changes only
+ * reach streams on the node that made them, which is enough for a single node or for
+ * sticky sessions.
+ */
+@Component
+public class NoteEventRelay {
+
+    private static final Logger logger = LoggerFactory.getLogger(NoteEventRelay.class);
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final String CHANNEL = "note_status";
+    private static final int POLL_TIMEOUT_MS = 10_000;
+    private static final long MAX_RECONNECT_DELAY_MS = 30_000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DataSourceProperties dataSourceProperties;
+    private final boolean shared;
+
+    private volatile Consumer<NoteStatusChangedEvent> subscriber = event -> { };
+    private volatile boolean running;
+    private Thread listener;
+
+    public NoteEventRelay(
+            JdbcTemplate jdbcTemplate,
+            DataSourceProperties dataSourceProperties,
+            @Value("${notes.events.relay:local}") String relay) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.dataSourceProperties = dataSourceProperties;
+        this.shared = "postgres".equalsIgnoreCase(relay);
+    }
+
+    /**
+     * Sets where this node's changes, and with the postgres relay the other nodes' too, are delivered.
+     */
+    public void subscribe(Consumer<NoteStatusChangedEvent> subscriber) {
+        this.subscriber = subscriber;
+    }
+
+    public void send(NoteStatusChangedEvent event) {
+        if (shared) {
+            try {
+                jdbcTemplate.queryForList("SELECT pg_notify(?, ?)", CHANNEL, OBJECT_MAPPER.writeValueAsString(event));
+                return;
+            } catch (Exception e) {
+                // Local streams at least still get it
+                logger.warn("Could not relay note event, delivering locally: {}", e.getMessage());
+            }
+        }
+        subscriber.accept(event);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!shared) {
+            return;
+        }
+        running = true;
+        listener = new Thread(this::listenLoop, "note-events-listener");
+        listener.setDaemon(true);
+        listener.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (listener != null) {
+            listener.interrupt();
+            listener.join(TimeUnit.SECONDS.toMillis(5));
+        }
+    }
+
+    private void listenLoop() {
+        long reconnectDelayMs = 1000;
+        while (running) {
+            try (Connection connection = DriverManager.getConnection(
+                    dataSourceProperties.determineUrl(),
+                    dataSourceProperties.determineUsername(),
+                    dataSourceProperties.determinePassword())) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + CHANNEL);
+                }
+                logger.info("Listening for note events on channel {}", CHANNEL);
+                reconnectDelayMs = 1000;
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(POLL_TIMEOUT_MS);
+                    if (notifications != null) {
+                        for (PGNotification notification : notifications) {
+                            deliver(notification.getParameter());
+                        }
+                    }
+                }
+            } catch (SQLException e) {
+                if (!running) {
+                    return;
+                }
+                logger.warn("Note event listener disconnected, reconnecting in {} ms: {}", reconnectDelayMs, e.getMessage());
+                try {
+                    TimeUnit.MILLISECONDS.sleep(reconnectDelayMs);
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+                reconnectDelayMs = Math.min(reconnectDelayMs * 2, MAX_RECONNECT_DELAY_MS);
+            }
+        }
+    }
+
+    private void deliver(String payload) {
+        try {
+            subscriber.accept(OBJECT_MAPPER.readValue(payload, NoteStatusChangedEvent.class));
+        } catch (Exception e) {
+            logger.warn("Dropping unreadable note event: {}", e.getMessage());
+        }
+    }
+}
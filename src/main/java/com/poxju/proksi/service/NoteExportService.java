@@ -0,0 +1,184 @@
+package com.poxju.proksi.service;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.poxju.proksi.model.Note;
+import com.poxju.proksi.model.User;
+import com.poxju.proksi.repository.NoteRepository;
+
+import jakarta.persistence.EntityManager;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Exports all notes of a user as NDJSON, one note per line, or as a ZIP of markdown files.
+ * Notes are read through a forward-only cursor and written to the response as they arrive;
+ * the persistence context is cleared every fetch, so memory stays flat however many notes
+ * there are. Each export holds a database connection until it finishes, so only
+ * {@code notes.export.max-concurrent} run at a time and further requests are turned away.
+ */
+@Service
+public class NoteExportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(NoteExportService.class);
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final int MAX_SLUG_LENGTH = 60;
+
+    private final NoteRepository noteRepository;
+    private final NoteContentStore noteContentStore;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final Semaphore running;
+
+    public NoteExportService(
+            NoteRepository noteRepository,
+            NoteContentStore noteContentStore,
+            EntityManager entityManager,
+            PlatformTransactionManager transactionManager,
+            @Value("${notes.export.max-concurrent:2}") int maxConcurrent) {
+        this.noteRepository = noteRepository;
+        this.noteContentStore = noteContentStore;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // Served by the read replica when one is configured
+        this.transactionTemplate.setReadOnly(true);
+        this.running = new Semaphore(Math.max(1, maxConcurrent));
+    }
+
+    /**
+     * Reserves an export slot and returns the body that writes the user's notes.
+     *
+     * @param format {@code ndjson} or {@code zip}
+     * @throws ResponseStatusException 429 when the maximum number of exports is running
+     */
+    public StreamingResponseBody export(User user, String format) {
+        if (!running.tryAcquire()) {
+            throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, "Too many exports running, try again later");
+        }
+        Long userId = user.getId();
+        return out -> {
+            try {
+                long notes = "zip".equals(format) ? writeZip(userId, out) : writeNdjson(userId, out);
+                logger.info("Exported {} notes of user {} as {}", notes, user.getEmail(), format);
+            } finally {
+                running.release();
+            }
+        };
+    }
+
+    private long writeNdjson(Long userId, OutputStream out) throws IOException {
+        try (JsonGenerator json = OBJECT_MAPPER.getFactory().createGenerator(out, JsonEncoding.UTF8)) {
+            json.setRootValueSeparator(null);
+            // The container closes the response stream
+            json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            return forEachNote(userId, note -> {
+                json.writeStartObject();
+                json.writeNumberField("id", note.getId());
+                json.writeStringField("title", note.getTitle());
+                json.writeStringField("content", noteContentStore.read(note));
+                json.writeStringField("summary", note.getSummary());
+                json.writeStringField("status", note.getStatus());
+                json.writeStringField("createdAt", note.getCreatedAt().toString());
+                json.writeStringField("updatedAt", note.getUpdatedAt() != null ? note.getUpdatedAt().toString() : null);
+                json.writeEndObject();
+                json.writeRaw('\n');
+            });
+        }
+    }
+
+    private long writeZip(Long userId, OutputStream out) throws IOException {
+        ZipOutputStream zip = new ZipOutputStream(out, StandardCharsets.UTF_8);
+        Writer writer = new OutputStreamWriter(zip, StandardCharsets.UTF_8);
+        long notes = forEachNote(userId, note -> {
+            zip.putNextEntry(new ZipEntry(note.getId() + "-" + slug(note.getTitle()) + ".md"));
+            writeMarkdown(note, writer);
+            writer.flush();
+            zip.closeEntry();
+        });
+        zip.finish();
+        return notes;
+    }
+
+    /**
+     * A markdown file with the note's metadata as front matter and its summary last.
+     */
+    private void writeMarkdown(Note note, Writer writer) throws IOException {
+        writer.write("---\n");
+        writer.write("id: " + note.getId() + "\n");
+        // JSON strings are valid double-quoted YAML strings
+        writer.write("title: " + OBJECT_MAPPER.writeValueAsString(note.getTitle()) + "\n");
+        writer.write("status: " + note.getStatus() + "\n");
+        writer.write("created: " + note.getCreatedAt() + "\n");
+        if (note.getUpdatedAt() != null) {
+            writer.write("updated: " + note.getUpdatedAt() + "\n");
+        }
+        writer.write("---\n\n# " + note.getTitle() + "\n\n");
+        writer.write(noteContentStore.read(note));
+        writer.write("\n");
+        if (note.getSummary() != null && !note.getSummary().isBlank()) {
+            writer.write("\n## Summary\n\n" + note.getSummary() + "\n");
+        }
+    }
+
+    private long forEachNote(Long userId, NoteWriter noteWriter) throws IOException {
+        try {
+            Long notes = transactionTemplate.execute(status -> {
+                long count = 0;
+                try (Stream<Note> stream = noteRepository.streamByUserId(userId)) {
+                    Iterator<Note> iterator = stream.iterator();
+                    while (iterator.hasNext()) {
+                        noteWriter.write(iterator.next());
+                        // Drops the notes written so far, one fetch at a time
+                        if (++count % NoteRepository.STREAM_FETCH_SIZE == 0) {
+                            entityManager.clear();
+                        }
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return count;
+            });
+            return notes != null ? notes : 0;
+        } catch (UncheckedIOException e) {
+            // Usually the client went away; the cursor and transaction are closed by now
+            throw e.getCause();
+        }
+    }
+
+    private static String slug(String title) {
+        String slug = title == null ? "" : title.toLowerCase(Locale.ROOT)
+                .replaceAll("[^a-z0-9]+", "-")
+                .replaceAll("^-|-$", "");
+        if (slug.length() > MAX_SLUG_LENGTH) {
+            slug = slug.substring(0, MAX_SLUG_LENGTH).replaceAll("-$", "");
+        }
+        return slug.isEmpty() ? "note" : slug;
+    }
+
+    @FunctionalInterface
+    private interface NoteWriter {
+        void write(Note note) throws IOException;
+    }
+}
@@ -0,0 +1,274 @@
+package com.poxju.proksi.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Reads notes from an import file one record at a time, so memory use does not depend on
+ * the size of the file. Two formats are accepted:
+ * <ul>
+ * <li>{@code ndjson}: one JSON object per line with {@code title} and {@code content}</li>
+ * <li>{@code csv}: RFC 4180 with a header row naming the {@code title} and {@code content}
+ * columns; quoted fields may contain commas, doubled quotes and line breaks</li>
+ * </ul>
+ * A malformed record is returned as a rejected row and reading continues with the next one.
+ * So is a record longer than {@code maxRecordChars}: past the limit the rest of it is read
+ * and discarded rather than buffered, so neither an overlong line nor a stray quote that
+ * runs to the end of the file can take more than the limit in memory.
+ */
+abstract class NoteImportReader implements Closeable {
+
+    static final String NDJSON = "ndjson";
+    static final String CSV = "csv";
+
+    record Row(long number, String title, String content, String error) {
+        static Row rejected(long number, String error) {
+            return new Row(number, null, null, error);
+        }
+
+        boolean isRejected() {
+            return error != null;
+        }
+    }
+
+    protected final BufferedReader reader;
+    protected final int maxRecordChars;
+    protected long rowNumber;
+
+    private NoteImportReader(BufferedReader reader, int maxRecordChars) {
+        this.reader = reader;
+        this.maxRecordChars = Math.max(1, maxRecordChars);
+    }
+
+    static NoteImportReader open(String format, BufferedReader reader, int maxRecordChars) throws IOException {
+        return switch (format) {
+            case NDJSON -> new Ndjson(reader, maxRecordChars);
+            case CSV -> new Csv(reader, maxRecordChars);
+            default -> throw new IllegalArgumentException("Unsupported import format: " + format);
+        };
+    }
+
+    /**
+     * Returns the next row, or null at the end of the input.
+     */
+    abstract Row next() throws IOException;
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private static final class Ndjson extends NoteImportReader {
+
+        private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+        private final StringBuilder line = new StringBuilder();
+        private boolean lineTooLong;
+
+        Ndjson(BufferedReader reader, int maxRecordChars) {
+            super(reader, maxRecordChars);
+        }
+
+        @Override
+        Row next() throws IOException {
+            String text;
+            do {
+                if (!readLine()) {
+                    return null;
+                }
+                rowNumber++;
+                if (lineTooLong) {
+                    return Row.rejected(rowNumber, "line is longer than " + maxRecordChars + " characters");
+                }
+                text = line.toString();
+            } while (text.isBlank());
+
+            try {
+                JsonNode node = OBJECT_MAPPER.readTree(text);
+                if (node == null || !node.isObject()) {
+                    return Row.rejected(rowNumber, "not a JSON object");
+                }
+                return new Row(rowNumber, text(node, "title"), text(node, "content"), null);
+            } catch (IOException e) {
+                return Row.rejected(rowNumber, "invalid JSON");
+            }
+        }
+
+        /**
+         * Reads the next line, without its terminator, into {@code line}; false at the end of
+         * the input. Of a line longer than the limit only the start is kept, and
+         * {@code lineTooLong} is set.
+         */
+        private boolean readLine() throws IOException {
+            line.setLength(0);
+            lineTooLong = false;
+            int c = reader.read();
+            if (c < 0) {
+                return false;
+            }
+            while (c >= 0 && c != '\n') {
+                if (line.length() < maxRecordChars) {
+                    line.append((char) c);
+                } else {
+                    lineTooLong = true;
+                }
+                c = reader.read();
+            }
+            if (!line.isEmpty() && line.charAt(line.length() - 1) == '\r') {
+                line.setLength(line.length() - 1);
+            }
+            return true;
+        }
+
+        private static String text(JsonNode node, String field) {
+            JsonNode value = node.get(field);
+            return value == null || value.isNull() ? null : value.asText();
+        }
+    }
+
+    private static final class Csv extends NoteImportReader {
+
+        private final int titleColumn;
+        private final int contentColumn;
+        private final StringBuilder field = new StringBuilder();
+        private int recordChars;
+
+        Csv(BufferedReader reader, int maxRecordChars) throws IOException {
+            super(reader, maxRecordChars);
+            List<String> header = readRecord();
+            if (header == null) {
+                titleColumn = contentColumn = -1;
+                return;
+            }
+            int title = -1;
+            int content = -1;
+            for (int i = 0; i < header.size(); i++) {
+                String name = header.get(i).strip().toLowerCase(Locale.ROOT);
+                // Excel writes a byte order mark in front of the first header
+                if (i == 0 && name.startsWith("\uFEFF")) {
+                    name = name.substring(1);
+                }
+                if (name.equals("title")) {
+                    title = i;
+                } else if (name.equals("content")) {
+                    content = i;
+                }
+            }
+            if (content < 0) {
+                throw new IllegalArgumentException("CSV header must have a content column");
+            }
+            titleColumn = title;
+            contentColumn = content;
+        }
+
+        @Override
+        Row next() throws IOException {
+            if (contentColumn < 0) {
+                return null;
+            }
+            List<String> record;
+            try {
+                record = readRecord();
+            } catch (MalformedRecordException e) {
+                return Row.rejected(rowNumber, e.getMessage());
+            }
+            if (record == null) {
+                return null;
+            }
+            if (record.size() <= contentColumn) {
+                return Row.rejected(rowNumber, "missing content column");
+            }
+            String title = titleColumn >= 0 && titleColumn < record.size() ? record.get(titleColumn) : null;
+            return new Row(rowNumber, title, record.get(contentColumn), null);
+        }
+
+        /**
+         * Reads one record, skipping empty lines; null at the end of the input.
+         */
+        private List<String> readRecord() throws IOException {
+            List<String> fields = new ArrayList<>();
+            field.setLength(0);
+            recordChars = 0;
+            boolean quoted = false;
+            boolean fieldStarted = false;
+            int c = reader.read();
+            while (c == '\r' || c == '\n') {
+                c = reader.read();
+            }
+            if (c < 0) {
+                return null;
+            }
+            rowNumber++;
+            while (true) {
+                if (quoted) {
+                    if (c < 0) {
+                        checkLength();
+                        throw new MalformedRecordException("unterminated quoted field");
+                    }
+                    if (c == '"') {
+                        reader.mark(1);
+                        int following = reader.read();
+                        if (following == '"') {
+                            append('"');
+                        } else {
+                            quoted = false;
+                            reader.reset();
+                        }
+                    } else {
+                        append((char) c);
+                    }
+                } else if (c == '"' && !fieldStarted) {
+                    quoted = true;
+                    fieldStarted = true;
+                } else if (c == ',') {
+                    // Separators count too, or a run of empty fields could grow the list unbounded
+                    recordChars++;
+                    checkLength();
+                    fields.add(field.toString());
+                    field.setLength(0);
+                    fieldStarted = false;
+                } else if (c == '\n' || c == '\r' || c < 0) {
+                    if (c == '\r') {
+                        reader.mark(1);
+                        if (reader.read() != '\n') {
+                            reader.reset();
+                        }
+                    }
+                    checkLength();
+                    fields.add(field.toString());
+                    return fields;
+                } else {
+                    append((char) c);
+                    fieldStarted = true;
+                }
+                c = reader.read();
+            }
+        }
+
+        // Past the limit characters are still parsed, to find the end of the record, but not kept
+        private void append(char c) {
+            if (++recordChars <= maxRecordChars) {
+                field.append(c);
+            }
+        }
+
+        private void checkLength() throws MalformedRecordException {
+            if (recordChars > maxRecordChars) {
+                throw new MalformedRecordException("record is longer than " + maxRecordChars + " characters");
+            }
+        }
+    }
+
+    private static final class MalformedRecordException extends IOException {
+        MalformedRecordException(String message) {
+            super(message);
+        }
+    }
+}
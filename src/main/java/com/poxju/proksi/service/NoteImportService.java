@@ -0,0 +1,296 @@
+package com.poxju.proksi.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.poxju.proksi.api.response.NoteImportResponse;
+import com.poxju.proksi.model.Note;
+import com.poxju.proksi.model.NoteImport;
+import com.poxju.proksi.model.Role;
+import com.poxju.proksi.model.User;
+import com.poxju.proksi.repository.NoteImportRepository;
+import com.poxju.proksi.service.NoteImportReader.Row;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Bulk note import. The upload is spooled to a temporary file and the request returns
+ * right away with a progress handle; the file is then read one record at a time and
+ * stored in batches, each in its own transaction: notes are persisted with ids from the
+ * pooled sequence and flushed as one JDBC batch, their summary jobs are queued with a
+ * single INSERT ... SELECT, and the import's counters are updated. Each batch's jobs are
+ * due a little later than the previous batch's, at {@code notes.import.summaries-per-minute},
+ * so a large import does not push notes written meanwhile to the back of the queue.
+ */
+@Service
+public class NoteImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(NoteImportService.class);
+    private static final int MAX_TITLE_LENGTH = 255;
+    private static final int MAX_ERROR_LENGTH = 500;
+    private static final int RECORD_OVERHEAD_CHARS = 64 * 1024;
+
+    private final NoteImportRepository importRepository;
+    private final SummaryJobService summaryJobService;
+    private final NoteContentStore noteContentStore;
+    private final NoteStatsService noteStatsService;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final ExecutorService executor = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("note-import-", 0).factory());
+    private final Semaphore running;
+    private final int batchSize;
+    private final long maxBatchChars;
+    private final long maxUploadBytes;
+    private final int maxNoteChars;
+    private final int maxRecordChars;
+    private final Duration batchSpacing;
+
+    public NoteImportService(
+            NoteImportRepository importRepository,
+            SummaryJobService summaryJobService,
+            NoteContentStore noteContentStore,
+            NoteStatsService noteStatsService,
+            EntityManager entityManager,
+            PlatformTransactionManager transactionManager,
+            @Value("${notes.import.batch-size:500}") int batchSize,
+            @Value("${notes.import.max-batch-chars:4000000}") long maxBatchChars,
+            @Value("${notes.import.max-upload-bytes:2147483648}") long maxUploadBytes,
+            @Value("${notes.import.max-note-chars:1000000}") int maxNoteChars,
+            @Value("${notes.import.max-concurrent:1}") int maxConcurrent,
+            @Value("${notes.import.summaries-per-minute:120}") int summariesPerMinute) {
+        this.importRepository = importRepository;
+        this.summaryJobService = summaryJobService;
+        this.noteContentStore = noteContentStore;
+        this.noteStatsService = noteStatsService;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = Math.max(1, batchSize);
+        this.maxBatchChars = Math.max(1, maxBatchChars);
+        this.maxUploadBytes = maxUploadBytes;
+        this.maxNoteChars = Math.max(1, maxNoteChars);
+        // Room for the title, other columns and JSON escapes around a note of the maximum length
+        this.maxRecordChars = (int) Math.min(Integer.MAX_VALUE - 8, 2L * this.maxNoteChars + RECORD_OVERHEAD_CHARS);
+        this.running = new Semaphore(Math.max(1, maxConcurrent));
+        this.batchSpacing = Duration.ofMillis(this.batchSize * 60_000L / Math.max(1, summariesPerMinute));
+    }
+
+    /**
+     * Spools the upload and starts the import in the background.
+     *
+     * @param format {@code ndjson} or {@code csv}
+     */
+    public NoteImportResponse submit(User user, String format, InputStream upload) throws IOException {
+        Path file = Files.createTempFile("note-import-", "." + format);
+        try {
+            spool(upload, file);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+
+        NoteImport noteImport = new NoteImport();
+        noteImport.setUserId(user.getId());
+        noteImport.setFormat(format);
+        NoteImport saved = importRepository.save(noteImport);
+        try {
+            executor.execute(() -> run(saved.getId(), user.getId(), format, file));
+        } catch (RuntimeException e) {
+            Files.deleteIfExists(file);
+            importRepository.markFinished(saved.getId(), "failed", "Import could not be started", LocalDateTime.now());
+            throw e;
+        }
+        logger.info("Note import {} queued for user {} ({} bytes of {})", saved.getId(), user.getEmail(), Files.size(file), format);
+        return toResponse(saved);
+    }
+
+    /**
+     * Returns the progress of an import started by the user, or of any import for an admin.
+     */
+    public Optional<NoteImportResponse> findVisibleImport(User user, Long importId) {
+        return importRepository.findById(importId)
+                .filter(noteImport -> user.getRole() == Role.ADMIN || noteImport.getUserId().equals(user.getId()))
+                .map(NoteImportService::toResponse);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void spool(InputStream upload, Path file) throws IOException {
+        byte[] buffer = new byte[64 * 1024];
+        long total = 0;
+        try (OutputStream out = Files.newOutputStream(file)) {
+            int read;
+            while ((read = upload.read(buffer)) > 0) {
+                total += read;
+                if (total > maxUploadBytes) {
+                    throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE, "Import file is too large");
+                }
+                out.write(buffer, 0, read);
+            }
+        }
+    }
+
+    private void run(Long importId, Long userId, String format, Path file) {
+        try {
+            running.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            finish(importId, "failed", "Interrupted before it started", file);
+            return;
+        }
+        String status = "failed";
+        String error = null;
+        try {
+            importRepository.markRunning(importId, LocalDateTime.now());
+            LocalDateTime runAt = LocalDateTime.now();
+            try (NoteImportReader reader = NoteImportReader.open(format, Files.newBufferedReader(file, StandardCharsets.UTF_8), maxRecordChars)) {
+                List<Row> batch = new ArrayList<>(batchSize);
+                long batchChars = 0;
+                Row row;
+                while ((row = reader.next()) != null) {
+                    batch.add(row);
+                    batchChars += row.content() != null ? row.content().length() : 0;
+                    if (batch.size() >= batchSize || batchChars >= maxBatchChars) {
+                        storeBatch(importId, userId, batch, runAt);
+                        runAt = runAt.plus(batchSpacing);
+                        batch.clear();
+                        batchChars = 0;
+                    }
+                }
+                if (!batch.isEmpty()) {
+                    storeBatch(importId, userId, batch, runAt);
+                }
+            }
+            status = "done";
+        } catch (IllegalArgumentException e) {
+            error = e.getMessage();
+        } catch (Exception e) {
+            logger.error("Note import {} failed", importId, e);
+            error = "Import stopped: " + e.getMessage();
+        } finally {
+            running.release();
+            finish(importId, status, error, file);
+        }
+    }
+
+    private void storeBatch(Long importId, Long userId, List<Row> rows, LocalDateTime runAt) {
+        transactionTemplate.executeWithoutResult(transaction -> {
+            User owner = entityManager.getReference(User.class, userId);
+            List<Long> noteIds = new ArrayList<>(rows.size());
+            List<Note> outOfLine = new ArrayList<>();
+            List<String> outOfLineBodies = new ArrayList<>();
+            long rejected = 0;
+            String lastError = null;
+
+            for (Row row : rows) {
+                String problem = row.isRejected() ? row.error() : validate(row);
+                if (problem != null) {
+                    rejected++;
+                    lastError = truncate("Row " + row.number() + ": " + problem);
+                    continue;
+                }
+                Note note = new Note();
+                note.setTitle(title(row.title()));
+                noteContentStore.assign(note, row.content());
+                note.setUser(owner);
+                note.setStatus("queued");
+                entityManager.persist(note);
+                noteIds.add(note.getId());
+                if (note.getContentHash() != null) {
+                    outOfLine.add(note);
+                    outOfLineBodies.add(row.content());
+                }
+            }
+
+            // One JDBC batch per hibernate.jdbc.batch_size notes
+            entityManager.flush();
+            for (int i = 0; i < outOfLine.size(); i++) {
+                noteContentStore.afterInsert(outOfLine.get(i), outOfLineBodies.get(i));
+            }
+            summaryJobService.enqueueAll(noteIds, runAt);
+            LocalDateTime now = LocalDateTime.now();
+            noteStatsService.recordCreated(userId, noteIds.size(), now);
+            importRepository.recordProgress(importId, rows.size(), noteIds.size(), rejected, lastError, now);
+            entityManager.clear();
+        });
+    }
+
+    private String validate(Row row) {
+        if (row.content() == null || row.content().isBlank()) {
+            return "content is empty";
+        }
+        if (row.content().length() > maxNoteChars) {
+            return "content is longer than " + maxNoteChars + " characters";
+        }
+        return null;
+    }
+
+    private void finish(Long importId, String status, String error, Path file) {
+        try {
+            importRepository.markFinished(importId, status, truncate(error), LocalDateTime.now());
+        } catch (Exception e) {
+            logger.error("Could not record the result of note import {}", importId, e);
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            logger.warn("Could not delete import file {}", file, e);
+        }
+        logger.info("Note import {} finished: {}", importId, status);
+    }
+
+    private static String title(String title) {
+        if (title == null || title.isBlank()) {
+            return "Untitled";
+        }
+        String stripped = title.strip();
+        return stripped.length() > MAX_TITLE_LENGTH ? stripped.substring(0, MAX_TITLE_LENGTH) : stripped;
+    }
+
+    private static String truncate(String message) {
+        if (message != null && message.length() > MAX_ERROR_LENGTH) {
+            return message.substring(0, MAX_ERROR_LENGTH - 3) + "...";
+        }
+        return message;
+    }
+
+    private static NoteImportResponse toResponse(NoteImport noteImport) {
+        return NoteImportResponse.builder()
+                .id(noteImport.getId())
+                .format(noteImport.getFormat())
+                .status(noteImport.getStatus())
+                .rowsRead(noteImport.getRowsRead())
+                .notesImported(noteImport.getNotesImported())
+                .rowsRejected(noteImport.getRowsRejected())
+                .lastError(noteImport.getLastError())
+                .createdAt(noteImport.getCreatedAt())
+                .updatedAt(noteImport.getUpdatedAt())
+                .finishedAt(noteImport.getFinishedAt())
+                .build();
+    }
+}
@@ -0,0 +1,12 @@
+package com.poxju.proksi.service;
+
+import java.util.List;
+
+import com.poxju.proksi.repository.NoteListItem;
+
+/**
+ * One page of a note list with the cursors of its neighbours; a cursor is null when
+ * there is no page in that direction.
+ */
+public record NoteListPage(List<NoteListItem> notes, String newerCursor, String olderCursor) {
+}
@@ -0,0 +1,176 @@
+package com.poxju.proksi.service;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.poxju.proksi.repository.NotePartitionRepository;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Timestamp;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Keeps the monthly partitions of notes ahead of time and, when a retention is set,
+ * archives the months past it: each is detached from notes, exported to a gzipped NDJSON
+ * file with the full note bodies, and dropped along with its summary jobs and blobs.
+ * Does nothing while notes is not partitioned, as with a schema generated by Hibernate.
+ * Runs on one instance at a time, under a database advisory lock.
+ */
+@Component
+public class NotePartitionMaintenance {
+
+    private static final Logger logger = LoggerFactory.getLogger(NotePartitionMaintenance.class);
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final NotePartitionRepository repository;
+    private final NoteContentStore contentStore;
+    private final NoteStatsService noteStatsService;
+    private final TransactionTemplate transactionTemplate;
+    private final int monthsAhead;
+    private final int retentionMonths;
+    private final Path archiveDir;
+
+    public NotePartitionMaintenance(
+            NotePartitionRepository repository,
+            NoteContentStore contentStore,
+            NoteStatsService noteStatsService,
+            PlatformTransactionManager transactionManager,
+            @Value("${notes.partitions.months-ahead:3}") int monthsAhead,
+            @Value("${notes.partitions.retention-months:0}") int retentionMonths,
+            @Value("${notes.partitions.archive-dir:archive/notes}") String archiveDir) {
+        this.repository = repository;
+        this.contentStore = contentStore;
+        this.noteStatsService = noteStatsService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.monthsAhead = Math.max(1, monthsAhead);
+        this.retentionMonths = Math.max(0, retentionMonths);
+        this.archiveDir = Path.of(archiveDir);
+    }
+
+    @Scheduled(
+            initialDelayString = "${notes.partitions.initial-delay-ms:10000}",
+            fixedDelayString = "${notes.partitions.maintenance-interval-ms:3600000}")
+    public void maintain() {
+        try {
+            if (!repository.isPartitioned()) {
+                logger.debug("Notes table is not partitioned; skipping partition maintenance");
+                return;
+            }
+            // One instance at a time: the others would race on the detaches, the archive files
+            // and the drops
+            boolean ran = repository.runExclusively(() -> {
+                createFuturePartitions();
+                if (retentionMonths > 0) {
+                    archiveExpiredPartitions();
+                }
+            });
+            if (!ran) {
+                logger.debug("Note partition maintenance is running on another instance; skipping");
+            }
+        } catch (Exception e) {
+            logger.error("Error maintaining note partitions", e);
+        }
+    }
+
+    private void createFuturePartitions() {
+        YearMonth current = YearMonth.now();
+        for (int i = 0; i <= monthsAhead; i++) {
+            repository.createPartition(current.plusMonths(i));
+        }
+    }
+
+    /**
+     * Archives every partition that ends on or before the start of the retention window.
+     * A run interrupted at any step is picked up by the next: pending detaches are
+     * finalized and detached tables that are still there are archived again.
+     */
+    private void archiveExpiredPartitions() {
+        for (String partition : repository.findPendingDetaches()) {
+            logger.info("Finalizing interrupted detach of note partition {}", partition);
+            repository.finalizeDetach(partition);
+        }
+
+        YearMonth firstKept = YearMonth.now().minusMonths(retentionMonths);
+        for (String partition : repository.findPartitions()) {
+            if (NotePartitionRepository.monthOf(partition).isBefore(firstKept)) {
+                logger.info("Detaching note partition {} (retention {} months)", partition, retentionMonths);
+                repository.detachConcurrently(partition);
+            }
+        }
+
+        List<String> detached = repository.findDetached();
+        for (String table : detached) {
+            archive(table);
+        }
+        if (!detached.isEmpty()) {
+            // Archived notes no longer count on the dashboard
+            noteStatsService.reconcile();
+        }
+    }
+
+    private void archive(String table) {
+        Path target = archiveDir.resolve(table + ".ndjson.gz");
+        Path partial = archiveDir.resolve(table + ".ndjson.gz.part");
+        long rows;
+        try {
+            Files.createDirectories(archiveDir);
+            rows = export(table, partial);
+            Files.move(partial, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not archive note partition " + table + " to " + target, e);
+        }
+        Integer blobs = transactionTemplate.execute(status -> repository.dropArchived(table));
+        logger.info("Archived {} notes of partition {} to {} ({} blobs removed)", rows, table, target, blobs);
+    }
+
+    private long export(String table, Path file) throws IOException {
+        long[] rows = { 0 };
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(file), 64 * 1024);
+                JsonGenerator json = OBJECT_MAPPER.getFactory().createGenerator(out, JsonEncoding.UTF8)) {
+            json.setRootValueSeparator(null);
+            transactionTemplate.executeWithoutResult(status -> repository.streamRows(table, rs -> {
+                try {
+                    json.writeStartObject();
+                    json.writeNumberField("id", rs.getLong("id"));
+                    long userId = rs.getLong("user_id");
+                    if (rs.wasNull()) {
+                        json.writeNullField("userId");
+                    } else {
+                        json.writeNumberField("userId", userId);
+                    }
+                    json.writeStringField("title", rs.getString("title"));
+                    json.writeStringField("content", contentStore.read(rs.getString("content"), rs.getBytes("content_hash")));
+                    json.writeStringField("summary", rs.getString("summary"));
+                    json.writeStringField("status", rs.getString("status"));
+                    json.writeStringField("createdAt", format(rs.getTimestamp("created_at")));
+                    json.writeStringField("updatedAt", format(rs.getTimestamp("updated_at")));
+                    json.writeEndObject();
+                    json.writeRaw('\n');
+                    rows[0]++;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }));
+        }
+        return rows[0];
+    }
+
+    private static String format(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toLocalDateTime().toString() : null;
+    }
+}
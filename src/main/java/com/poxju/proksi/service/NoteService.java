@@ -0,0 +1,192 @@
+package com.poxju.proksi.service;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.util.HtmlUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.poxju.proksi.api.response.NoteResponse;
+import com.poxju.proksi.api.response.NoteSearchResponse;
+import com.poxju.proksi.api.response.NoteSearchResult;
+import com.poxju.proksi.model.Note;
+import com.poxju.proksi.model.Role;
+import com.poxju.proksi.model.User;
+import com.poxju.proksi.repository.NoteCursor;
+import com.poxju.proksi.repository.NoteListItem;
+import com.poxju.proksi.repository.NoteRepository;
+import com.poxju.proksi.repository.NoteSearchHit;
+
+import lombok.RequiredArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+@Service
+@RequiredArgsConstructor
+public class NoteService {
+
+    private static final Logger logger = LoggerFactory.getLogger(NoteService.class);
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final int MAX_SEARCH_PAGE = 50;
+    private static final int MAX_QUERY_LENGTH = 200;
+    // Matches are delimited with control characters so the headline can be HTML-escaped
+    // as a whole before the delimiters are turned into <mark> tags
+    private static final String MATCH_START = "\u0002";
+    private static final String MATCH_END = "\u0003";
+    private static final String HEADLINE_OPTIONS = "StartSel=" + MATCH_START + ", StopSel=" + MATCH_END
+            + ", MaxWords=35, MinWords=15, MaxFragments=2, FragmentDelimiter=\" … \"";
+
+    private final NoteRepository noteRepository;
+    private final SummaryJobService summaryJobService;
+    private final NoteContentStore noteContentStore;
+    private final NoteStatsService noteStatsService;
+    private final NoteAdmission noteAdmission;
+
+    /**
+     * Saves a note and queues its summary job in one transaction, so a note is
+     * never persisted without the job that will summarize it. While summarization is
+     * overloaded the job is queued for later (see {@link NoteAdmission}).
+     */
+    @Transactional
+    public Note createNote(User user, String title, String content) {
+        Note note = new Note();
+        note.setTitle(title);
+        noteContentStore.assign(note, content);
+        note.setUser(user);
+        note.setStatus("queued");
+
+        // Flush now: ids come from a pooled sequence, so the insert would otherwise wait for commit
+        Note savedNote = noteRepository.saveAndFlush(note);
+        noteContentStore.afterInsert(savedNote, content);
+        summaryJobService.enqueue(savedNote.getId(), noteAdmission.summaryRunAt());
+        noteStatsService.recordCreated(user.getId(), 1, LocalDateTime.now());
+        logger.info("Note saved with ID: {} by user: {}", savedNote.getId(), user.getEmail());
+        return savedNote;
+    }
+
+    /**
+     * Loads a note with its full content and summary if the user owns it or is an admin.
+     */
+    @Transactional(readOnly = true)
+    public Optional<NoteResponse> findVisibleNote(User user, Long noteId) {
+        return noteRepository.findById(noteId)
+                .filter(note -> user.getRole() == Role.ADMIN || note.getUser().getId().equals(user.getId()))
+                .map(note -> NoteResponse.builder()
+                        .id(note.getId())
+                        .title(note.getTitle())
+                        .content(noteContentStore.read(note))
+                        .summary(note.getSummary())
+                        .status(note.getStatus())
+                        .createdAt(note.getCreatedAt())
+                        .updatedAt(note.getUpdatedAt())
+                        .build());
+    }
+
+    /**
+     * Lists the notes the user can see, newest first: their own, or every note for an admin.
+     * Pages are addressed by cursor. {@code olderThan} continues past the last note of a page,
+     * {@code newerThan} goes back before its first note. Invalid cursors start from the top.
+     */
+    @Transactional(readOnly = true)
+    public NoteListPage listNotes(User user, String olderThan, String newerThan, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        Limit limit = Limit.of(pageSize + 1);
+        Long userId = user.getRole() == Role.ADMIN ? null : user.getId();
+
+        Optional<NoteCursor> newerCursor = NoteCursor.decode(newerThan);
+        if (newerCursor.isPresent()) {
+            NoteCursor cursor = newerCursor.get();
+            List<NoteListItem> rows = userId == null
+                    ? noteRepository.findNewerListItems(cursor.createdAt(), cursor.id(), limit)
+                    : noteRepository.findNewerListItemsByUserId(userId, cursor.createdAt(), cursor.id(), limit);
+            // Back at the top: serve the regular first page so it is always full
+            if (rows.size() > pageSize) {
+                List<NoteListItem> notes = new ArrayList<>(rows.subList(0, pageSize));
+                Collections.reverse(notes);
+                return page(notes, true, true);
+            }
+        }
+
+        Optional<NoteCursor> olderCursor = newerCursor.isPresent() ? Optional.empty() : NoteCursor.decode(olderThan);
+        List<NoteListItem> rows;
+        if (olderCursor.isPresent()) {
+            NoteCursor cursor = olderCursor.get();
+            rows = userId == null
+                    ? noteRepository.findOlderListItems(cursor.createdAt(), cursor.id(), limit)
+                    : noteRepository.findOlderListItemsByUserId(userId, cursor.createdAt(), cursor.id(), limit);
+        } else {
+            rows = userId == null
+                    ? noteRepository.findLatestListItems(limit)
+                    : noteRepository.findLatestListItemsByUserId(userId, limit);
+        }
+        boolean hasOlder = rows.size() > pageSize;
+        return page(hasOlder ? rows.subList(0, pageSize) : rows, olderCursor.isPresent(), hasOlder);
+    }
+
+    /**
+     * Full-text search over title, content and summary, best match first. Agents search their
+     * own notes, admins all notes. Pages are numbered; only the first
+     * {@value #MAX_SEARCH_PAGE} are served, since a query is expected to be refined before that.
+     */
+    @Transactional(readOnly = true)
+    public NoteSearchResponse search(User user, String query, int page, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        int pageNumber = Math.max(0, Math.min(page, MAX_SEARCH_PAGE - 1));
+        String terms = query == null ? "" : query.strip();
+        if (terms.length() > MAX_QUERY_LENGTH) {
+            terms = terms.substring(0, MAX_QUERY_LENGTH);
+        }
+
+        List<NoteSearchHit> hits = List.of();
+        if (!terms.isEmpty()) {
+            int offset = pageNumber * pageSize;
+            hits = user.getRole() == Role.ADMIN
+                    ? noteRepository.search(terms, HEADLINE_OPTIONS, pageSize + 1, offset)
+                    : noteRepository.searchByUserId(user.getId(), terms, HEADLINE_OPTIONS, pageSize + 1, offset);
+        }
+        boolean hasNext = hits.size() > pageSize;
+
+        List<NoteSearchResult> results = new ArrayList<>(Math.min(hits.size(), pageSize));
+        for (NoteSearchHit hit : hasNext ? hits.subList(0, pageSize) : hits) {
+            results.add(NoteSearchResult.builder()
+                    .id(hit.getId())
+                    .title(hit.getTitle())
+                    .status(hit.getStatus())
+                    .createdAt(hit.getCreatedAt())
+                    .ownerUsername(hit.getOwnerUsername())
+                    .rank(hit.getRank())
+                    .headline(highlight(hit.getHeadline()))
+                    .build());
+        }
+        return NoteSearchResponse.builder()
+                .query(terms)
+                .page(pageNumber)
+                .size(pageSize)
+                .hasNext(hasNext)
+                .results(results)
+                .build();
+    }
+
+    private static String highlight(String headline) {
+        if (headline == null) {
+            return "";
+        }
+        return HtmlUtils.htmlEscape(headline)
+                .replace(MATCH_START, "<mark>")
+                .replace(MATCH_END, "</mark>");
+    }
+
+    private static NoteListPage page(List<NoteListItem> notes, boolean hasNewer, boolean hasOlder) {
+        if (notes.isEmpty()) {
+            return new NoteListPage(notes, null, null);
+        }
+        return new NoteListPage(notes,
+                hasNewer ? NoteCursor.of(notes.get(0)).encode() : null,
+                hasOlder ? NoteCursor.of(notes.get(notes.size() - 1)).encode() : null);
+    }
+}
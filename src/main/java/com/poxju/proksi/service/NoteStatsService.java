@@ -0,0 +1,152 @@
+package com.poxju.proksi.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.poxju.proksi.api.response.NoteStatsResponse;
+import com.poxju.proksi.api.response.NoteThroughput;
+import com.poxju.proksi.api.response.UserNoteStats;
+import com.poxju.proksi.repository.NoteStatsRepository;
+import com.poxju.proksi.repository.NoteStatsRepository.ThroughputBucket;
+import com.poxju.proksi.repository.NoteStatsRepository.UserStatusCounts;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Note counts per owner and status, and hourly throughput, kept in rollup tables so the
+ * admin dashboard reads a few rows per user instead of scanning notes. Every note insert
+ * and status change records its delta in the same transaction; a periodic reconciliation
+ * recounts the notes table and corrects whatever drifted, e.g. after manual fixes in SQL.
+ */
+@Service
+public class NoteStatsService {
+
+    private static final Logger logger = LoggerFactory.getLogger(NoteStatsService.class);
+
+    private final NoteStatsRepository repository;
+    private final TransactionTemplate transactionTemplate;
+    private final int throughputRetentionDays;
+
+    public NoteStatsService(
+            NoteStatsRepository repository,
+            PlatformTransactionManager transactionManager,
+            @Value("${notes.stats.throughput-retention-days:30}") int throughputRetentionDays) {
+        this.repository = repository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.throughputRetentionDays = Math.max(1, throughputRetentionDays);
+    }
+
+    /**
+     * Counts newly inserted notes, all queued. Call in the transaction that inserted them.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordCreated(Long userId, int notes, LocalDateTime now) {
+        if (notes <= 0) {
+            return;
+        }
+        if (userId != null) {
+            repository.addCounts(userId, Map.of("queued", (long) notes));
+        }
+        repository.addThroughput(bucketOf(now), notes, 0, 0);
+    }
+
+    /**
+     * Moves a note from one status count to another. Call in the transaction that changed the status.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordTransition(Long userId, String from, String to, LocalDateTime now) {
+        if (userId != null) {
+            repository.addCounts(userId, Map.of(from, -1L, to, 1L));
+        }
+        if ("done".equals(to) || "failed".equals(to)) {
+            repository.addThroughput(bucketOf(now), 0, "done".equals(to) ? 1 : 0, "failed".equals(to) ? 1 : 0);
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public NoteStatsResponse dashboard() {
+        List<UserStatusCounts> users = repository.findUserCounts();
+        LocalDateTime since = bucketOf(LocalDateTime.now()).minusHours(23);
+        List<ThroughputBucket> buckets = repository.findThroughputSince(since);
+
+        long queued = 0, processing = 0, done = 0, failed = 0;
+        for (UserStatusCounts user : users) {
+            queued += user.queued();
+            processing += user.processing();
+            done += user.done();
+            failed += user.failed();
+        }
+        long created = 0, completedLastDay = 0, failedLastDay = 0;
+        for (ThroughputBucket bucket : buckets) {
+            created += bucket.created();
+            completedLastDay += bucket.completed();
+            failedLastDay += bucket.failed();
+        }
+        long finished = completedLastDay + failedLastDay;
+
+        return NoteStatsResponse.builder()
+                .totalNotes(queued + processing + done + failed)
+                .queued(queued)
+                .processing(processing)
+                .done(done)
+                .failed(failed)
+                .createdLastDay(created)
+                .completedLastDay(completedLastDay)
+                .failedLastDay(failedLastDay)
+                .successRateLastDay(finished > 0 ? (double) completedLastDay / finished : null)
+                .users(users.stream()
+                        .map(user -> UserNoteStats.builder()
+                                .userId(user.userId())
+                                .username(user.username())
+                                .email(user.email())
+                                .total(user.total())
+                                .queued(user.queued())
+                                .processing(user.processing())
+                                .done(user.done())
+                                .failed(user.failed())
+                                .build())
+                        .toList())
+                .throughput(buckets.stream()
+                        .map(bucket -> NoteThroughput.builder()
+                                .bucketStart(bucket.bucketStart())
+                                .created(bucket.created())
+                                .completed(bucket.completed())
+                                .failed(bucket.failed())
+                                .build())
+                        .toList())
+                .build();
+    }
+
+    /**
+     * Recounts the notes table into the rollups. Writers' rollup updates wait while it runs,
+     * so it is scheduled rarely; throughput buckets past retention are dropped at the same time.
+     */
+    @Scheduled(
+            initialDelayString = "${notes.stats.reconcile-initial-delay-ms:60000}",
+            fixedDelayString = "${notes.stats.reconcile-interval-ms:3600000}")
+    public void reconcile() {
+        try {
+            Integer corrected = transactionTemplate.execute(status -> repository.reconcileCounts());
+            if (corrected != null && corrected > 0) {
+                logger.warn("Corrected {} note count rows that drifted from the notes table", corrected);
+            }
+            repository.deleteThroughputBefore(bucketOf(LocalDateTime.now()).minusDays(throughputRetentionDays));
+        } catch (Exception e) {
+            logger.error("Error reconciling note statistics", e);
+        }
+    }
+
+    private static LocalDateTime bucketOf(LocalDateTime time) {
+        return time.truncatedTo(ChronoUnit.HOURS);
+    }
+}
@@ -0,0 +1,9 @@
+package com.poxju.proksi.service;
+
+/**
+ * Published when a note moves to a new status, for pushing the change to open pages.
+ * {@code version} is the note's version after the change, so later changes of a note
+ * always carry higher versions.
+ */
+public record NoteStatusChangedEvent(Long noteId, Long userId, String status, long version) {
+}
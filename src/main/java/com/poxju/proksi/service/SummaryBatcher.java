@@ -0,0 +1,163 @@
+package com.poxju.proksi.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Groups individual summarization requests into micro-batches.
+ * A batch is sent when it reaches {@code maxBatchSize} items or when the oldest item
+ * has waited {@code maxWaitMs}, whichever comes first. Items a batch call could not
+ * summarize are retried one by one, so a partial failure only costs the failed items.
+ * Handlers are asynchronous, so dispatching a batch never blocks the collector thread.
+ */
+class SummaryBatcher {
+
+    /**
+     * Summarizes several inputs in one call. The returned list is aligned with the
+     * inputs; a {@code null} entry marks an item that has to be retried on its own.
+     */
+    interface BatchHandler {
+        CompletableFuture<List<String>> summarizeAll(List<String> inputs);
+    }
+
+    interface SingleHandler {
+        CompletableFuture<String> summarize(String input);
+    }
+
+    private record Pending(String input, CompletableFuture<String> result) {}
+
+    private static final Logger logger = LoggerFactory.getLogger(SummaryBatcher.class);
+
+    private final BlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+    private final int maxBatchSize;
+    private final long maxWaitNanos;
+    private final BatchHandler batchHandler;
+    private final SingleHandler singleHandler;
+    private final Thread collector;
+
+    private volatile boolean running = true;
+
+    SummaryBatcher(int maxBatchSize, long maxWaitMs, BatchHandler batchHandler, SingleHandler singleHandler) {
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, maxWaitMs));
+        this.batchHandler = batchHandler;
+        this.singleHandler = singleHandler;
+        this.collector = new Thread(this::collectLoop, "hf-batch-collector");
+        this.collector.setDaemon(true);
+        this.collector.start();
+    }
+
+    CompletableFuture<String> submit(String input) {
+        CompletableFuture<String> result = new CompletableFuture<>();
+        if (!running) {
+            result.completeExceptionally(new IllegalStateException("Summary batcher is shut down"));
+            return result;
+        }
+        queue.add(new Pending(input, result));
+        return result;
+    }
+
+    void shutdown() {
+        running = false;
+        collector.interrupt();
+        Pending pending;
+        while ((pending = queue.poll()) != null) {
+            pending.result().completeExceptionally(new IllegalStateException("Summary batcher is shut down"));
+        }
+    }
+
+    private void collectLoop() {
+        while (running) {
+            try {
+                Pending first = queue.take();
+                List<Pending> batch = new ArrayList<>(maxBatchSize);
+                batch.add(first);
+
+                long deadline = System.nanoTime() + maxWaitNanos;
+                while (batch.size() < maxBatchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    Pending next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                dispatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                logger.error("Error collecting summary batch", e);
+            }
+        }
+    }
+
+    private void dispatch(List<Pending> batch) {
+        if (batch.size() == 1) {
+            summarizeSingle(batch.get(0));
+            return;
+        }
+
+        List<String> inputs = new ArrayList<>(batch.size());
+        for (Pending pending : batch) {
+            inputs.add(pending.input());
+        }
+
+        invoke(() -> batchHandler.summarizeAll(inputs)).whenComplete((results, error) -> {
+            if (error != null) {
+                Throwable cause = unwrap(error);
+                logger.warn("Summary batch of {} inputs failed: {}", batch.size(), cause.getMessage());
+                for (Pending pending : batch) {
+                    pending.result().completeExceptionally(cause);
+                }
+                return;
+            }
+            logger.debug("Summarized batch of {} inputs", batch.size());
+
+            int retried = 0;
+            for (int i = 0; i < batch.size(); i++) {
+                String summary = i < results.size() ? results.get(i) : null;
+                if (summary != null) {
+                    batch.get(i).result().complete(summary);
+                } else {
+                    retried++;
+                    summarizeSingle(batch.get(i));
+                }
+            }
+            if (retried > 0) {
+                logger.debug("Retried {} of {} batch items individually", retried, batch.size());
+            }
+        });
+    }
+
+    private void summarizeSingle(Pending pending) {
+        invoke(() -> singleHandler.summarize(pending.input())).whenComplete((summary, error) -> {
+            if (error != null) {
+                pending.result().completeExceptionally(unwrap(error));
+            } else {
+                pending.result().complete(summary);
+            }
+        });
+    }
+
+    private static <T> CompletableFuture<T> invoke(Supplier<CompletableFuture<T>> call) {
+        try {
+            return call.get();
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+}
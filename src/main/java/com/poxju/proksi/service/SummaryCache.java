@@ -0,0 +1,252 @@
+package com.poxju.proksi.service;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.poxju.proksi.model.SummaryCacheEntry;
+import com.poxju.proksi.repository.SummaryCacheRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PreDestroy;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.Normalizer;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * Two-tier cache of model summaries keyed by normalized content hash and model parameters.
+ * The first tier is a bounded in-memory Caffeine cache (W-TinyLFU eviction), the second
+ * is the summary_cache table, which survives restarts. Concurrent requests for the same
+ * key share one in-flight load, so duplicate pastes cost at most one remote call.
+ *
+ * The table is read and written on a small executor of its own, never on the caller's
+ * thread, which may be an HTTP or batcher callback thread; when that executor is saturated
+ * a lookup counts as a miss and a write is skipped. Hits on the table are counted in memory
+ * and written in one transaction every {@code summary.cache.hit-flush-ms}, rather than one
+ * update per hit.
+ */
+@Component
+public class SummaryCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(SummaryCache.class);
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final SummaryCacheRepository repository;
+    private final Cache<String, String> memory;
+    private final ConcurrentHashMap<String, CompletableFuture<String>> inFlight = new ConcurrentHashMap<>();
+    private final int retentionDays;
+    private final Executor cacheExecutor;
+    private final TransactionTemplate transactionTemplate;
+    // Persistent-tier hits not yet written to the table
+    private final ConcurrentHashMap<String, LongAdder> pendingHits = new ConcurrentHashMap<>();
+
+    private final Counter memoryHits;
+    private final Counter persistentHits;
+    private final Counter misses;
+    private final Counter coalesced;
+    private final Counter evictions;
+
+    public SummaryCache(
+            SummaryCacheRepository repository,
+            MeterRegistry meterRegistry,
+            PlatformTransactionManager transactionManager,
+            @Qualifier("summaryCacheExecutor") Executor cacheExecutor,
+            @Value("${summary.cache.max-entries:1000}") long maxEntries,
+            @Value("${summary.cache.retention-days:30}") int retentionDays) {
+        this.repository = repository;
+        this.retentionDays = retentionDays;
+        this.cacheExecutor = cacheExecutor;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.memoryHits = meterRegistry.counter("summary.cache.requests", "result", "hit", "tier", "memory");
+        this.persistentHits = meterRegistry.counter("summary.cache.requests", "result", "hit", "tier", "database");
+        this.misses = meterRegistry.counter("summary.cache.requests", "result", "miss", "tier", "none");
+        this.coalesced = meterRegistry.counter("summary.cache.coalesced");
+        this.evictions = meterRegistry.counter("summary.cache.evictions");
+        this.memory = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .recordStats()
+                .removalListener((String key, String value, RemovalCause cause) -> {
+                    if (cause.wasEvicted()) {
+                        evictions.increment();
+                    }
+                })
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, memory, "summaryCache");
+    }
+
+    /**
+     * Builds the cache key for a text and the model parameters it is summarized with.
+     * Whitespace runs are collapsed and Unicode is normalized so trivially different
+     * copies of the same paste share an entry.
+     */
+    public String keyFor(String text, String model, int maxLength, int minLength) {
+        String normalized = WHITESPACE.matcher(Normalizer.normalize(text, Normalizer.Form.NFC)).replaceAll(" ").trim();
+        return sha256(normalized) + ":" + sha256(model).substring(0, 8) + ":" + maxLength + ":" + minLength;
+    }
+
+    /**
+     * Returns the cached summary for the key, or runs {@code loader} once for all
+     * concurrent callers and caches a successful result in both tiers.
+     * Failed loads are not cached.
+     */
+    public CompletableFuture<String> getOrLoad(String key, Supplier<CompletableFuture<String>> loader) {
+        String cached = memory.getIfPresent(key);
+        if (cached != null) {
+            memoryHits.increment();
+            return CompletableFuture.completedFuture(cached);
+        }
+
+        CompletableFuture<String> created = new CompletableFuture<>();
+        CompletableFuture<String> existing = inFlight.putIfAbsent(key, created);
+        if (existing != null) {
+            coalesced.increment();
+            return existing;
+        }
+
+        CompletableFuture<Optional<String>> lookup;
+        try {
+            lookup = CompletableFuture.supplyAsync(() -> loadPersisted(key), cacheExecutor);
+        } catch (RejectedExecutionException e) {
+            logger.debug("Summary cache lookup skipped, executor saturated");
+            lookup = CompletableFuture.completedFuture(Optional.empty());
+        }
+        lookup.thenAccept(persisted -> {
+            if (persisted.isPresent()) {
+                persistentHits.increment();
+                pendingHits.computeIfAbsent(key, k -> new LongAdder()).increment();
+                memory.put(key, persisted.get());
+                complete(key, created, persisted.get(), null);
+            } else {
+                load(key, created, loader);
+            }
+        });
+        return created;
+    }
+
+    /**
+     * Writes the persistent-tier hits counted since the last flush. A hit counted while its
+     * key is being flushed may be lost; the counts are for retention, not billing.
+     */
+    @PreDestroy
+    @Scheduled(
+            initialDelayString = "${summary.cache.hit-flush-ms:60000}",
+            fixedDelayString = "${summary.cache.hit-flush-ms:60000}")
+    public void flushHits() {
+        if (pendingHits.isEmpty()) {
+            return;
+        }
+        Map<String, Long> hits = new HashMap<>();
+        for (String key : pendingHits.keySet()) {
+            LongAdder count = pendingHits.remove(key);
+            if (count != null) {
+                hits.put(key, count.sum());
+            }
+        }
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            transactionTemplate.executeWithoutResult(status ->
+                    hits.forEach((key, count) -> repository.recordHits(key, count, now)));
+        } catch (Exception e) {
+            logger.warn("Summary cache hit flush failed: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(cron = "${summary.cache.cleanup-cron:0 30 3 * * *}")
+    public void purgeStaleEntries() {
+        try {
+            int deleted = repository.deleteNotAccessedSince(LocalDateTime.now().minusDays(retentionDays));
+            if (deleted > 0) {
+                logger.info("Purged {} summary cache entries unused for {} days", deleted, retentionDays);
+            }
+        } catch (Exception e) {
+            logger.error("Error purging summary cache", e);
+        }
+    }
+
+    private void load(String key, CompletableFuture<String> created, Supplier<CompletableFuture<String>> loader) {
+        misses.increment();
+        try {
+            loader.get().whenComplete((summary, error) -> {
+                if (error == null && summary != null) {
+                    memory.put(key, summary);
+                }
+                complete(key, created, summary, error);
+                if (error == null && summary != null) {
+                    persist(key, summary);
+                }
+            });
+        } catch (Exception e) {
+            complete(key, created, null, e);
+        }
+    }
+
+    private Optional<String> loadPersisted(String key) {
+        try {
+            return repository.findById(key).map(SummaryCacheEntry::getSummary);
+        } catch (Exception e) {
+            // The persistent tier is an optimization; never fail a summary because of it
+            logger.warn("Summary cache lookup failed: {}", e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    private void persist(String key, String summary) {
+        LocalDateTime now = LocalDateTime.now();
+        try {
+            cacheExecutor.execute(() -> {
+                try {
+                    repository.insertIfAbsent(key, summary, now);
+                } catch (Exception e) {
+                    logger.warn("Summary cache write failed: {}", e.getMessage());
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Still in the memory tier; only a restart loses it
+            logger.debug("Summary cache write skipped, executor saturated");
+        }
+    }
+
+    private void complete(String key, CompletableFuture<String> future, String summary, Throwable error) {
+        inFlight.remove(key, future);
+        if (error != null) {
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            future.completeExceptionally(cause);
+        } else {
+            future.complete(summary);
+        }
+    }
+
+    private static String sha256(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package com.poxju.proksi.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.poxju.proksi.model.SummaryJob;
+import com.poxju.proksi.repository.SummaryJobRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Persistent summarization job queue backed by the summary_jobs table.
+ * Enqueueing is a single insert, so note submission cost does not depend on the backlog;
+ * workers claim due jobs with FOR UPDATE SKIP LOCKED and hold a lease while processing.
+ */
+@Service
+public class SummaryJobService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SummaryJobService.class);
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    private final SummaryJobRepository jobRepository;
+    private final AISummaryService aiSummaryService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int maxAttempts;
+    private final Duration leaseDuration;
+    private final Duration retryBackoff;
+    private final Duration maxRetryBackoff;
+
+    public SummaryJobService(
+            SummaryJobRepository jobRepository,
+            AISummaryService aiSummaryService,
+            ApplicationEventPublisher eventPublisher,
+            @Value("${summary.jobs.max-attempts:5}") int maxAttempts,
+            @Value("${summary.jobs.lease-ms:300000}") long leaseMs,
+            @Value("${summary.jobs.retry-backoff-ms:5000}") long retryBackoffMs,
+            @Value("${summary.jobs.max-retry-backoff-ms:600000}") long maxRetryBackoffMs) {
+        this.jobRepository = jobRepository;
+        this.aiSummaryService = aiSummaryService;
+        this.eventPublisher = eventPublisher;
+        this.maxAttempts = maxAttempts;
+        this.leaseDuration = Duration.ofMillis(leaseMs);
+        this.retryBackoff = Duration.ofMillis(retryBackoffMs);
+        this.maxRetryBackoff = Duration.ofMillis(maxRetryBackoffMs);
+    }
+
+    /**
+     * Adds a summarization job for the note. Joins the caller's transaction so the
+     * note and its job are committed together; local workers are woken after commit.
+     */
+    @Transactional
+    public SummaryJob enqueue(Long noteId) {
+        return enqueue(noteId, null);
+    }
+
+    /**
+     * Adds a summarization job for the note, due at {@code runAt}, or now if null. Joins
+     * the caller's transaction. Workers are only woken for jobs that are due now.
+     */
+    @Transactional
+    public SummaryJob enqueue(Long noteId, LocalDateTime runAt) {
+        SummaryJob job = new SummaryJob();
+        job.setNoteId(noteId);
+        job.setMaxAttempts(maxAttempts);
+        if (runAt != null) {
+            job.setRunAt(runAt);
+        }
+        SummaryJob saved = jobRepository.save(job);
+        if (runAt == null) {
+            eventPublisher.publishEvent(new SummaryJobsEnqueuedEvent(1));
+        }
+        return saved;
+    }
+
+    /**
+     * Queues jobs for notes inserted in bulk, due at {@code runAt}. Joins the caller's
+     * transaction. Workers are not woken; they find the jobs when they come due, so
+     * an import can spread its jobs over time instead of flooding the queue.
+     */
+    @Transactional
+    public int enqueueAll(Collection<Long> noteIds, LocalDateTime runAt) {
+        if (noteIds.isEmpty()) {
+            return 0;
+        }
+        return jobRepository.insertPending(noteIds, maxAttempts, runAt, LocalDateTime.now());
+    }
+
+    /**
+     * Claims up to {@code limit} due jobs for the given worker and leases them.
+     * Each claim counts as an attempt, so a job that keeps crashing its worker still
+     * runs out of attempts.
+     */
+    @Transactional
+    public List<SummaryJob> claim(String workerId, int limit) {
+        LocalDateTime now = LocalDateTime.now();
+        List<SummaryJob> jobs = jobRepository.lockDueJobs(now, limit);
+        for (SummaryJob job : jobs) {
+            job.setStatus("running");
+            job.setLockedBy(workerId);
+            job.setClaimToken(UUID.randomUUID().toString());
+            job.setLeaseUntil(now.plus(leaseDuration));
+            job.setAttempts(job.getAttempts() + 1);
+            job.setUpdatedAt(now);
+        }
+        return jobRepository.saveAll(jobs);
+    }
+
+    /**
+     * Removes a finished job. Does nothing if the lease was lost, i.e. the job was claimed
+     * again since, by another node or this one.
+     */
+    @Transactional
+    public void complete(SummaryJob job, String workerId) {
+        if (jobRepository.deleteClaimed(job.getId(), job.getClaimToken()) == 0) {
+            logger.warn("Summary job {} completed by {} after its lease was lost", job.getId(), workerId);
+        }
+    }
+
+    /**
+     * Records a failed attempt: reschedules with exponential backoff while attempts
+     * remain, otherwise marks the job and its note as failed.
+     */
+    @Transactional
+    public void fail(SummaryJob job, String workerId, Exception error) {
+        SummaryJob claimed = jobRepository.findClaimed(job.getId(), job.getClaimToken());
+        if (claimed == null) {
+            logger.warn("Summary job {} failed on {} after its lease was lost", job.getId(), workerId);
+            return;
+        }
+        String errorMessage = truncateError(error.getMessage());
+        claimed.setLastError(errorMessage);
+        releaseOrFail(claimed, LocalDateTime.now(), errorMessage);
+    }
+
+    /**
+     * Returns a claimed job to the queue without counting the attempt, for work that
+     * was turned away before it ran (request limit reached, circuit open, model loading).
+     */
+    @Transactional
+    public void reschedule(SummaryJob job, String workerId, Duration delay) {
+        SummaryJob claimed = jobRepository.findClaimed(job.getId(), job.getClaimToken());
+        if (claimed == null) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        claimed.setStatus("pending");
+        claimed.setLockedBy(null);
+        claimed.setClaimToken(null);
+        claimed.setLeaseUntil(null);
+        claimed.setAttempts(Math.max(0, claimed.getAttempts() - 1));
+        claimed.setRunAt(now.plus(delay));
+        claimed.setUpdatedAt(now);
+        jobRepository.save(claimed);
+        aiSummaryService.markQueued(claimed.getNoteId());
+    }
+
+    /**
+     * Re-queues running jobs whose lease expired because the owning worker crashed,
+     * was killed during a restart, or stalled past the lease duration.
+     *
+     * @return number of jobs recovered
+     */
+    @Transactional
+    public int recoverExpiredLeases(int limit) {
+        LocalDateTime now = LocalDateTime.now();
+        List<SummaryJob> expired = jobRepository.lockExpiredLeases(now, limit);
+        for (SummaryJob job : expired) {
+            logger.warn("Recovering summary job {} for note {} from expired lease held by {}",
+                    job.getId(), job.getNoteId(), job.getLockedBy());
+            job.setLastError("Lease expired");
+            releaseOrFail(job, now, "Processing was interrupted");
+        }
+        if (!expired.isEmpty()) {
+            eventPublisher.publishEvent(new SummaryJobsEnqueuedEvent(expired.size()));
+        }
+        return expired.size();
+    }
+
+    public long pendingCount() {
+        return jobRepository.countByStatus("pending");
+    }
+
+    /**
+     * Number of pending jobs that are due, counted up to {@code limit}.
+     */
+    public long dueCount(int limit) {
+        return jobRepository.countDue(LocalDateTime.now(), limit);
+    }
+
+    private void releaseOrFail(SummaryJob job, LocalDateTime now, String errorMessage) {
+        job.setLockedBy(null);
+        job.setClaimToken(null);
+        job.setLeaseUntil(null);
+        job.setUpdatedAt(now);
+        if (job.hasAttemptsLeft()) {
+            job.setStatus("pending");
+            job.setRunAt(now.plus(backoffFor(job.getAttempts())));
+            logger.info("Summary job {} for note {} rescheduled at {} (attempt {}/{})",
+                    job.getId(), job.getNoteId(), job.getRunAt(), job.getAttempts(), job.getMaxAttempts());
+            aiSummaryService.markQueued(job.getNoteId());
+        } else {
+            job.setStatus("failed");
+            logger.error("Summary job {} for note {} failed after {} attempts",
+                    job.getId(), job.getNoteId(), job.getAttempts());
+            aiSummaryService.markFailed(job.getNoteId(), errorMessage);
+        }
+        jobRepository.save(job);
+    }
+
+    private Duration backoffFor(int attempts) {
+        // 1x, 2x, 4x, ... the base backoff, capped to keep retries within reach
+        int exponent = Math.max(0, Math.min(attempts - 1, 20));
+        Duration backoff = retryBackoff.multipliedBy(1L << exponent);
+        return backoff.compareTo(maxRetryBackoff) > 0 ? maxRetryBackoff : backoff;
+    }
+
+    private String truncateError(String errorMessage) {
+        if (errorMessage != null && errorMessage.length() > MAX_ERROR_LENGTH) {
+            return errorMessage.substring(0, MAX_ERROR_LENGTH - 3) + "...";
+        }
+        return errorMessage;
+    }
+}
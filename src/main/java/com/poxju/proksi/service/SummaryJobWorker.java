@@ -0,0 +1,209 @@
+package com.poxju.proksi.service;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.poxju.proksi.model.SummaryJob;
+
+import jakarta.annotation.PreDestroy;
+
+import java.net.InetAddress;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Drains the persistent summary job queue.
+ * A single claimer thread leases as many due jobs as there are free worker slots and
+ * starts each on the {@code taskExecutor}, so {@code summary.jobs.workers} bounds concurrent
+ * summarizations on this node. Slots are held until the summary future completes, not by a
+ * blocked thread, so the slot count can be raised well above the thread count. The claimer
+ * polls while idle and is woken early when jobs are enqueued locally.
+ */
+@Component
+public class SummaryJobWorker {
+
+    private static final Logger logger = LoggerFactory.getLogger(SummaryJobWorker.class);
+    private static final int RECOVERY_BATCH_SIZE = 100;
+
+    private final SummaryJobService jobService;
+    private final AISummaryService aiSummaryService;
+    private final Executor taskExecutor;
+    private final int workerCount;
+    private final long pollIntervalMs;
+    private final Duration minDeferDelay;
+    private final Duration maxDeferral;
+    private final String workerId;
+    private final Semaphore freeSlots;
+    private final Semaphore wakeUps = new Semaphore(0);
+
+    private volatile boolean running;
+    private Thread claimer;
+
+    public SummaryJobWorker(
+            SummaryJobService jobService,
+            AISummaryService aiSummaryService,
+            @Qualifier("taskExecutor") Executor taskExecutor,
+            @Value("${summary.jobs.workers:8}") int workerCount,
+            @Value("${summary.jobs.poll-interval-ms:2000}") long pollIntervalMs,
+            @Value("${summary.jobs.min-defer-delay-ms:2000}") long minDeferDelayMs,
+            @Value("${summary.jobs.max-deferral-ms:900000}") long maxDeferralMs) {
+        this.jobService = jobService;
+        this.aiSummaryService = aiSummaryService;
+        this.taskExecutor = taskExecutor;
+        this.workerCount = Math.max(1, workerCount);
+        this.pollIntervalMs = pollIntervalMs;
+        this.minDeferDelay = Duration.ofMillis(minDeferDelayMs);
+        this.maxDeferral = Duration.ofMillis(maxDeferralMs);
+        this.workerId = resolveWorkerId();
+        this.freeSlots = new Semaphore(this.workerCount);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        running = true;
+        claimer = new Thread(this::claimLoop, "summary-claimer");
+        claimer.setDaemon(true);
+        claimer.start();
+        logger.info("Started summary worker {} with {} slots", workerId, workerCount);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (claimer == null) {
+            return;
+        }
+        claimer.interrupt();
+        claimer.join(TimeUnit.SECONDS.toMillis(5));
+        // Give in-flight jobs time to finish; the rest keep their lease and are recovered later
+        if (freeSlots.tryAcquire(workerCount, 30, TimeUnit.SECONDS)) {
+            freeSlots.release(workerCount);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onJobsEnqueued(SummaryJobsEnqueuedEvent event) {
+        if (wakeUps.availablePermits() == 0) {
+            wakeUps.release();
+        }
+    }
+
+    @Scheduled(
+            initialDelayString = "${summary.jobs.recovery-initial-delay-ms:10000}",
+            fixedDelayString = "${summary.jobs.recovery-interval-ms:30000}")
+    public void recoverExpiredLeases() {
+        try {
+            int recovered = jobService.recoverExpiredLeases(RECOVERY_BATCH_SIZE);
+            if (recovered > 0) {
+                logger.info("Recovered {} summary jobs with expired leases", recovered);
+            }
+        } catch (Exception e) {
+            logger.error("Error recovering expired summary jobs", e);
+        }
+    }
+
+    private void claimLoop() {
+        while (running) {
+            try {
+                // Block until at least one slot is free, then claim for every free slot
+                freeSlots.acquire();
+                int slots = 1 + freeSlots.drainPermits();
+
+                List<SummaryJob> jobs;
+                try {
+                    jobs = jobService.claim(workerId, slots);
+                } catch (Exception e) {
+                    freeSlots.release(slots);
+                    logger.error("Summary worker {} failed to claim jobs", workerId, e);
+                    TimeUnit.MILLISECONDS.sleep(pollIntervalMs);
+                    continue;
+                }
+                freeSlots.release(slots - jobs.size());
+
+                for (SummaryJob job : jobs) {
+                    dispatch(job);
+                }
+                if (jobs.size() < slots) {
+                    // Queue drained; wait for new work or the next poll
+                    wakeUps.tryAcquire(pollIntervalMs, TimeUnit.MILLISECONDS);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void dispatch(SummaryJob job) {
+        try {
+            taskExecutor.execute(() -> process(job).whenComplete((ignored, error) -> freeSlots.release()));
+        } catch (Exception e) {
+            // Executor rejected the task; the lease expires and the sweep re-queues the job
+            freeSlots.release();
+            logger.error("Could not dispatch summary job {}", job.getId(), e);
+        }
+    }
+
+    /**
+     * Runs one job. The slot stays taken until the returned future completes, but no
+     * thread is held while the summary request is in flight.
+     * While the job is younger than {@code summary.jobs.max-deferral-ms} it is put back
+     * in the queue when the API is busy, cold or unavailable; after that the note gets
+     * the local fallback summary instead of waiting any longer.
+     */
+    private CompletableFuture<Void> process(SummaryJob job) {
+        boolean allowDeferral = job.getCreatedAt() == null
+                || job.getCreatedAt().isAfter(LocalDateTime.now().minus(maxDeferral));
+        CompletableFuture<Void> summary;
+        try {
+            summary = aiSummaryService.generateSummary(job.getNoteId(), allowDeferral);
+        } catch (Exception e) {
+            summary = CompletableFuture.failedFuture(e);
+        }
+        return summary.handle((ignored, error) -> {
+            try {
+                if (error == null) {
+                    jobService.complete(job, workerId);
+                } else {
+                    Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                    if (cause instanceof InferenceException inferenceError && inferenceError.isRetryable()) {
+                        Duration delay = inferenceError.getRetryAfter().compareTo(minDeferDelay) > 0
+                                ? inferenceError.getRetryAfter() : minDeferDelay;
+                        logger.debug("Summary job {} deferred by {}: {}", job.getId(), delay, cause.getMessage());
+                        jobService.reschedule(job, workerId, delay);
+                    } else {
+                        logger.warn("Summary job {} for note {} failed: {}", job.getId(), job.getNoteId(), cause.getMessage());
+                        jobService.fail(job, workerId, cause instanceof Exception ex ? ex : new RuntimeException(cause));
+                    }
+                }
+            } catch (Exception ex) {
+                logger.error("Error recording result of summary job {}", job.getId(), ex);
+            }
+            return null;
+        });
+    }
+
+    private static String resolveWorkerId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            host = "node";
+        }
+        return host + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+}
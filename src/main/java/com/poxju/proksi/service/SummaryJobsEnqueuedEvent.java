@@ -0,0 +1,8 @@
+package com.poxju.proksi.service;
+
+/**
+ * Published when summarization jobs become runnable, so idle workers on this node
+ * can claim them right away instead of waiting for the next poll.
+ */
+public record SummaryJobsEnqueuedEvent(int count) {
+}
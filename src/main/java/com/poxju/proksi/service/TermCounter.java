@@ -0,0 +1,140 @@
+package com.poxju.proksi.service;
+
+import java.util.Arrays;
+
+/**
+ * Case-insensitive term counts over ranges of a {@link CharSequence}.
+ * Open addressing with linear probing over primitive arrays: repeated occurrences of a
+ * term are hashed and compared in place, so a term's lowercase String is allocated once,
+ * when it is first seen, and counting a large text allocates in proportion to its vocabulary.
+ */
+class TermCounter {
+
+    private static final int EMPTY = -1;
+
+    private int[] slots;
+    private int[] hashes;
+    private int[] counts;
+    private String[] terms;
+    private int size;
+
+    TermCounter(int expectedTerms) {
+        int capacity = Integer.highestOneBit(Math.max(16, expectedTerms * 2 - 1)) << 1;
+        slots = new int[capacity];
+        Arrays.fill(slots, EMPTY);
+        hashes = new int[capacity / 2];
+        counts = new int[capacity / 2];
+        terms = new String[capacity / 2];
+    }
+
+    /**
+     * Counts one occurrence of {@code text[start, end)} and returns its term id.
+     */
+    int add(CharSequence text, int start, int end) {
+        int hash = hash(text, start, end);
+        int mask = slots.length - 1;
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            int id = slots[slot];
+            if (id == EMPTY) {
+                id = insert(slot, hash, text, start, end);
+                counts[id] = 1;
+                return id;
+            }
+            if (hashes[id] == hash && matches(terms[id], text, start, end)) {
+                counts[id]++;
+                return id;
+            }
+        }
+    }
+
+    /**
+     * Returns the id of {@code text[start, end)}, or -1 if it was never added.
+     */
+    int find(CharSequence text, int start, int end) {
+        int hash = hash(text, start, end);
+        int mask = slots.length - 1;
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            int id = slots[slot];
+            if (id == EMPTY) {
+                return -1;
+            }
+            if (hashes[id] == hash && matches(terms[id], text, start, end)) {
+                return id;
+            }
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    int count(int id) {
+        return counts[id];
+    }
+
+    String term(int id) {
+        return terms[id];
+    }
+
+    private int insert(int slot, int hash, CharSequence text, int start, int end) {
+        if (size == terms.length) {
+            grow();
+            int mask = slots.length - 1;
+            slot = hash & mask;
+            while (slots[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+        }
+        int id = size++;
+        slots[slot] = id;
+        hashes[id] = hash;
+        terms[id] = lowercase(text, start, end);
+        return id;
+    }
+
+    private void grow() {
+        int capacity = slots.length * 2;
+        slots = new int[capacity];
+        Arrays.fill(slots, EMPTY);
+        hashes = Arrays.copyOf(hashes, capacity / 2);
+        counts = Arrays.copyOf(counts, capacity / 2);
+        terms = Arrays.copyOf(terms, capacity / 2);
+        int mask = capacity - 1;
+        for (int id = 0; id < size; id++) {
+            int slot = hashes[id] & mask;
+            while (slots[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = id;
+        }
+    }
+
+    private static int hash(CharSequence text, int start, int end) {
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + Character.toLowerCase(text.charAt(i));
+        }
+        // Spread the low bits used for slot selection
+        return hash ^ (hash >>> 16);
+    }
+
+    private static boolean matches(String term, CharSequence text, int start, int end) {
+        if (term.length() != end - start) {
+            return false;
+        }
+        for (int i = 0; i < term.length(); i++) {
+            if (term.charAt(i) != Character.toLowerCase(text.charAt(start + i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String lowercase(CharSequence text, int start, int end) {
+        char[] chars = new char[end - start];
+        for (int i = start; i < end; i++) {
+            chars[i - start] = Character.toLowerCase(text.charAt(i));
+        }
+        return new String(chars);
+    }
+}
@@ -0,0 +1,107 @@
+package com.poxju.proksi.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Splits long text into chunks that each fit one model input.
+ * Paragraphs are kept whole where possible; oversized paragraphs are split on sentence
+ * boundaries, and oversized sentences on whitespace. Pieces are packed towards an even
+ * chunk size so the last chunk is not a short tail the model would pad out.
+ */
+class TextChunker {
+
+    private static final Pattern PARAGRAPH_BREAK = Pattern.compile("\\n\\s*\\n");
+    private static final Pattern SENTENCE_BREAK = Pattern.compile("(?<=[.!?])\\s+");
+
+    private final int maxChunkChars;
+
+    TextChunker(int maxChunkChars) {
+        this.maxChunkChars = Math.max(100, maxChunkChars);
+    }
+
+    int getMaxChunkChars() {
+        return maxChunkChars;
+    }
+
+    List<String> split(String text) {
+        String trimmed = text.strip();
+        if (trimmed.length() <= maxChunkChars) {
+            return List.of(trimmed);
+        }
+
+        List<String> pieces = new ArrayList<>();
+        for (String paragraph : PARAGRAPH_BREAK.split(trimmed)) {
+            addPiece(pieces, paragraph.strip());
+        }
+
+        int chunkCount = (trimmed.length() + maxChunkChars - 1) / maxChunkChars;
+        int targetChars = Math.min(maxChunkChars, (trimmed.length() + chunkCount - 1) / chunkCount);
+
+        List<String> chunks = new ArrayList<>();
+        StringBuilder current = new StringBuilder(maxChunkChars);
+        for (String piece : pieces) {
+            int separator = current.isEmpty() ? 0 : 2;
+            if (!current.isEmpty()
+                    && (current.length() >= targetChars || current.length() + separator + piece.length() > maxChunkChars)) {
+                chunks.add(current.toString());
+                current.setLength(0);
+                separator = 0;
+            }
+            if (separator > 0) {
+                current.append("\n\n");
+            }
+            current.append(piece);
+        }
+        if (!current.isEmpty()) {
+            chunks.add(current.toString());
+        }
+        return chunks;
+    }
+
+    private void addPiece(List<String> pieces, String paragraph) {
+        if (paragraph.isEmpty()) {
+            return;
+        }
+        if (paragraph.length() <= maxChunkChars) {
+            pieces.add(paragraph);
+            return;
+        }
+        // Regroup sentences of an oversized paragraph into pieces that fit
+        StringBuilder current = new StringBuilder(maxChunkChars);
+        for (String sentence : SENTENCE_BREAK.split(paragraph)) {
+            if (!current.isEmpty() && current.length() + 1 + sentence.length() > maxChunkChars) {
+                pieces.add(current.toString());
+                current.setLength(0);
+            }
+            if (sentence.length() > maxChunkChars) {
+                addWords(pieces, sentence);
+                continue;
+            }
+            if (!current.isEmpty()) {
+                current.append(' ');
+            }
+            current.append(sentence);
+        }
+        if (!current.isEmpty()) {
+            pieces.add(current.toString());
+        }
+    }
+
+    private void addWords(List<String> pieces, String sentence) {
+        int start = 0;
+        while (sentence.length() - start > maxChunkChars) {
+            int end = sentence.lastIndexOf(' ', start + maxChunkChars);
+            if (end <= start) {
+                end = start + maxChunkChars;
+            }
+            pieces.add(sentence.substring(start, end).strip());
+            start = end;
+        }
+        String rest = sentence.substring(start).strip();
+        if (!rest.isEmpty()) {
+            pieces.add(rest);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.poxju.proksi.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory token buckets, one per key (an IP address, an account, a user). A bucket holds
+ * up to {@code capacity} tokens and regains {@code refillPerMinute} per minute; each
+ * admitted request takes one. Idle buckets are dropped once they would be full again,
+ * and the number of buckets is bounded, so a flood of distinct keys cannot exhaust memory.
+ *
+ * A bucket is a single timestamp, the time at which it will be full again, updated with
+ * compare-and-set, so concurrent requests on the same key never block each other.
+ */
+public class TokenBuckets {
+
+    // Time for one token to come back, and for an empty bucket to fill up
+    private final long tokenNanos;
+    private final long capacityNanos;
+    private final Cache<String, AtomicLong> buckets;
+
+    public TokenBuckets(int capacity, int refillPerMinute, long maxKeys) {
+        this.tokenNanos = Duration.ofMinutes(1).toNanos() / Math.max(1, refillPerMinute);
+        this.capacityNanos = tokenNanos * Math.max(1, capacity);
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfterAccess(Duration.ofNanos(capacityNanos))
+                .build();
+    }
+
+    /**
+     * Takes a token from the key's bucket.
+     *
+     * @return 0 if a token was taken, otherwise the milliseconds until one is available
+     */
+    public long tryAcquire(String key) {
+        return tryAcquire(key, System.nanoTime());
+    }
+
+    long tryAcquire(String key, long now) {
+        // A new bucket starts full
+        AtomicLong fullAt = buckets.get(key, k -> new AtomicLong(now));
+        while (true) {
+            long current = fullAt.get();
+            long next = Math.max(current, now) + tokenNanos;
+            if (next - now > capacityNanos) {
+                return Math.max(1, TimeUnit.NANOSECONDS.toMillis(next - now - capacityNanos + 999_999));
+            }
+            if (fullAt.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.poxju.proksi.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.poxju.proksi.repository.RevokedTokenRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Revocation list of individual tokens by jti, e.g. on logout. Revocations are stored in
+ * revoked_tokens and mirrored into Bloom filters, so checking a token that was not revoked,
+ * the common case, needs no query; only a filter hit is confirmed against the table.
+ *
+ * The filters rotate: each covers the revocations of tokens expiring within one window of
+ * {@code auth.revocation.windows-per-lifetime}-th of the token lifetime, and is dropped
+ * whole once that window has passed. At startup the filters are rebuilt from the unexpired
+ * rows; afterwards revocations recorded by other instances are picked up every
+ * {@code auth.revocation.sync-ms}. Checks are counted as {@code auth.revocation.checks}.
+ */
+@Component
+public class TokenRevocations {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenRevocations.class);
+    // Re-read revocations this far back on every sync, for commits that landed late
+    private static final long SYNC_OVERLAP_SECONDS = 60;
+    private static final int PURGE_BATCH_SIZE = 1000;
+
+    private final RevokedTokenRepository repository;
+    private final long windowMs;
+    private final long expectedPerWindow;
+    private final double falsePositiveRate;
+    // Filters by window index: a token expiring at t is in window t / windowMs
+    private final ConcurrentSkipListMap<Long, BloomFilter> filters = new ConcurrentSkipListMap<>();
+    private volatile LocalDateTime syncedAt;
+
+    private final Counter bloomNegatives;
+    private final Counter falsePositives;
+    private final Counter revokedHits;
+
+    public TokenRevocations(
+            RevokedTokenRepository repository,
+            MeterRegistry meterRegistry,
+            @Value("${JWT_EXPIRATION_MS:86400000}") long tokenLifetimeMs,
+            @Value("${auth.revocation.windows-per-lifetime:4}") int windowsPerLifetime,
+            @Value("${auth.revocation.expected-per-window:100000}") long expectedPerWindow,
+            @Value("${auth.revocation.false-positive-rate:0.001}") double falsePositiveRate) {
+        this.repository = repository;
+        this.windowMs = Math.max(60_000, tokenLifetimeMs / Math.max(1, windowsPerLifetime));
+        this.expectedPerWindow = expectedPerWindow;
+        this.falsePositiveRate = falsePositiveRate;
+        this.bloomNegatives = meterRegistry.counter("auth.revocation.checks", "result", "bloom-negative");
+        this.falsePositives = meterRegistry.counter("auth.revocation.checks", "result", "false-positive");
+        this.revokedHits = meterRegistry.counter("auth.revocation.checks", "result", "revoked");
+        meterRegistry.gauge("auth.revocation.filters", filters, ConcurrentSkipListMap::size);
+    }
+
+    /**
+     * Revokes one token until it expires.
+     */
+    public void revoke(String jti, Date expiresAt) {
+        if (jti == null || expiresAt == null || expiresAt.getTime() <= System.currentTimeMillis()) {
+            return;
+        }
+        repository.insert(jti, toLocal(expiresAt.getTime()), LocalDateTime.now());
+        add(jti, expiresAt.getTime());
+        logger.info("Revoked token {} (expires {})", jti, expiresAt.toInstant());
+    }
+
+    public boolean isRevoked(String jti) {
+        if (syncedAt == null) {
+            // Filters not built yet: ask the table rather than trust empty filters
+            return repository.isRevoked(jti, LocalDateTime.now());
+        }
+        if (!mightBeRevoked(jti)) {
+            bloomNegatives.increment();
+            return false;
+        }
+        boolean revoked = repository.isRevoked(jti, LocalDateTime.now());
+        (revoked ? revokedHits : falsePositives).increment();
+        return revoked;
+    }
+
+    /**
+     * Builds the filters from all unexpired revocations on the first run, then adds the
+     * revocations recorded since the previous run.
+     */
+    @Scheduled(initialDelay = 0, fixedDelayString = "${auth.revocation.sync-ms:5000}")
+    public synchronized void sync() {
+        LocalDateTime started = LocalDateTime.now();
+        LocalDateTime since = syncedAt != null ? syncedAt.minusSeconds(SYNC_OVERLAP_SECONDS) : null;
+        try {
+            int[] rows = { 0 };
+            repository.findLive(since, started, rs -> {
+                add(rs.getString("jti"), rs.getTimestamp("expires_at").getTime());
+                rows[0]++;
+            });
+            if (since == null) {
+                logger.info("Loaded {} revoked tokens into {} filters", rows[0], filters.size());
+            }
+            syncedAt = started;
+        } catch (Exception e) {
+            logger.error("Error syncing revoked tokens", e);
+        }
+    }
+
+    /**
+     * Deletes revocations of tokens that have expired and drops the filters of past windows.
+     */
+    @Scheduled(
+            initialDelayString = "${auth.revocation.purge-interval-ms:3600000}",
+            fixedDelayString = "${auth.revocation.purge-interval-ms:3600000}")
+    public void purge() {
+        try {
+            filters.headMap(System.currentTimeMillis() / windowMs).clear();
+            LocalDateTime now = LocalDateTime.now();
+            int deleted = 0;
+            int batch;
+            do {
+                batch = repository.deleteExpired(now, PURGE_BATCH_SIZE);
+                deleted += batch;
+            } while (batch == PURGE_BATCH_SIZE);
+            if (deleted > 0) {
+                logger.info("Purged {} expired token revocations", deleted);
+            }
+        } catch (Exception e) {
+            logger.error("Error purging revoked tokens", e);
+        }
+    }
+
+    private boolean mightBeRevoked(String jti) {
+        ConcurrentNavigableMap<Long, BloomFilter> live = filters.tailMap(System.currentTimeMillis() / windowMs);
+        for (BloomFilter filter : live.values()) {
+            if (filter.mightContain(jti)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void add(String jti, long expiresAtMs) {
+        filters.computeIfAbsent(expiresAtMs / windowMs, window -> new BloomFilter(expectedPerWindow, falsePositiveRate))
+                .add(jti);
+    }
+
+    private static LocalDateTime toLocal(long epochMs) {
+        return LocalDateTime.ofInstant(new Date(epochMs).toInstant(), ZoneId.systemDefault());
+    }
+}
@@ -0,0 +1,114 @@
+package com.poxju.proksi.service;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.poxju.proksi.model.User;
+import com.poxju.proksi.repository.UserRepository;
+import com.poxju.proksi.repository.UserTokenVersion;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Current token version of every user whose tokens were ever revoked, held in memory so
+ * tokens are checked without a query. A token carries the version it was issued with and
+ * is rejected once the user's version is higher. Revocations made on this instance apply
+ * at once; those made on other instances are picked up by the periodic refresh.
+ *
+ * The versions are loaded when the application is ready. Until a load succeeds, e.g. while
+ * the database is down, requests check against the revocations known so far; at most one
+ * of them at a time retries the load, and only every {@value #RETRY_DELAY_MS} ms, so the
+ * others neither queue on a lock nor wait for a connection.
+ */
+@Component
+public class TokenVersions {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenVersions.class);
+    private static final long RETRY_DELAY_MS = 5000;
+
+    private final UserRepository userRepository;
+    private final UserPrincipalCache userPrincipalCache;
+    private final Map<Long, Long> versions = new ConcurrentHashMap<>();
+    private final ReentrantLock refreshLock = new ReentrantLock();
+    private volatile boolean loaded;
+    private volatile long nextRetryAt;
+
+    public TokenVersions(UserRepository userRepository, UserPrincipalCache userPrincipalCache) {
+        this.userRepository = userRepository;
+        this.userPrincipalCache = userPrincipalCache;
+    }
+
+    /**
+     * Whether a token issued with the given version has not been revoked since.
+     */
+    public boolean isCurrent(long userId, long tokenVersion) {
+        if (!loaded) {
+            retryLoad();
+        }
+        return tokenVersion >= versions.getOrDefault(userId, 0L);
+    }
+
+    /**
+     * Revokes every token issued to the user so far.
+     *
+     * @return the user's new token version
+     */
+    @Transactional
+    public long revoke(User user) {
+        userRepository.incrementTokenVersion(user.getId());
+        long version = userRepository.findTokenVersion(user.getId());
+        versions.merge(user.getId(), version, Math::max);
+        userPrincipalCache.invalidate(user.getEmail());
+        logger.info("Revoked tokens of user {} (token version {})", user.getEmail(), version);
+        return version;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        refresh();
+    }
+
+    @Scheduled(
+            initialDelayString = "${auth.token-versions.refresh-ms:10000}",
+            fixedDelayString = "${auth.token-versions.refresh-ms:10000}")
+    public void refresh() {
+        refreshLock.lock();
+        try {
+            refreshLocked();
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    private void retryLoad() {
+        if (System.currentTimeMillis() < nextRetryAt || !refreshLock.tryLock()) {
+            return;
+        }
+        try {
+            if (!loaded && System.currentTimeMillis() >= nextRetryAt) {
+                refreshLocked();
+            }
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    private void refreshLocked() {
+        try {
+            for (UserTokenVersion row : userRepository.findRevokedTokenVersions()) {
+                versions.merge(row.getId(), row.getTokenVersion(), Math::max);
+            }
+            loaded = true;
+        } catch (Exception e) {
+            nextRetryAt = System.currentTimeMillis() + RETRY_DELAY_MS;
+            logger.error("Error refreshing token versions", e);
+        }
+    }
+}
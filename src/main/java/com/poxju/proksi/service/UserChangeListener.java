@@ -0,0 +1,35 @@
+package com.poxju.proksi.service;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import com.poxju.proksi.model.User;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+
+/**
+ * JPA listener of {@link User} that evicts changed users from the {@link UserPrincipalCache}.
+ * Instantiated by Spring through Hibernate's bean container. Bulk JPQL or SQL updates of
+ * users bypass it and must invalidate the cache themselves.
+ */
+@Component
+public class UserChangeListener {
+
+    // Looked up lazily: the listener is created with the EntityManagerFactory
+    private final ObjectProvider<UserPrincipalCache> principalCache;
+
+    public UserChangeListener(ObjectProvider<UserPrincipalCache> principalCache) {
+        this.principalCache = principalCache;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void userChanged(User user) {
+        if (user.getEmail() != null) {
+            principalCache.ifAvailable(cache -> cache.invalidate(user.getEmail()));
+        }
+    }
+}
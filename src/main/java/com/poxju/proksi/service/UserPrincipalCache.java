@@ -0,0 +1,72 @@
+package com.poxju.proksi.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.poxju.proksi.model.User;
+import com.poxju.proksi.repository.UserRepository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Users by email for authenticated requests, so a request carrying a token usually does not
+ * query the users table. Entries live for a short TTL and are dropped as soon as the user is
+ * changed through JPA (see {@link UserChangeListener}); unknown emails are not cached.
+ */
+@Component
+public class UserPrincipalCache {
+
+    private final UserRepository userRepository;
+    private final Cache<String, User> users;
+
+    public UserPrincipalCache(
+            UserRepository userRepository,
+            MeterRegistry meterRegistry,
+            @Value("${auth.principal-cache.max-entries:10000}") long maxEntries,
+            @Value("${auth.principal-cache.ttl-ms:60000}") long ttlMs) {
+        this.userRepository = userRepository;
+        this.users = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(Duration.ofMillis(ttlMs))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, users, "userPrincipals");
+    }
+
+    public Optional<User> findByEmail(String email) {
+        return Optional.ofNullable(users.get(email, key -> userRepository.findByEmail(key).orElse(null)));
+    }
+
+    public User loadUserByEmail(String email) {
+        return findByEmail(email).orElseThrow(() -> new UsernameNotFoundException("User not found: " + email));
+    }
+
+    /**
+     * Drops the cached user now and, if a transaction is running, again once it completes,
+     * so a request racing the transaction cannot cache the old row for a whole TTL.
+     */
+    public void invalidate(String email) {
+        users.invalidate(email);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    users.invalidate(email);
+                }
+            });
+        }
+    }
+
+    public void invalidateAll() {
+        users.invalidateAll();
+    }
+}
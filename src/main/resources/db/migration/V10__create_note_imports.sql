@@ -0,0 +1,39 @@
+-- Bulk note imports and batched note inserts.
+
+-- Progress of an import. The uploaded file is spooled to local disk and processed
+-- in batches; this row is updated after each batch commits.
+CREATE TABLE note_imports (
+    id BIGSERIAL PRIMARY KEY,
+    user_id BIGINT NOT NULL,
+    format VARCHAR(10) NOT NULL,
+    status VARCHAR(20) NOT NULL DEFAULT 'pending',
+    rows_read BIGINT NOT NULL DEFAULT 0,
+    notes_imported BIGINT NOT NULL DEFAULT 0,
+    rows_rejected BIGINT NOT NULL DEFAULT 0,
+    last_error TEXT,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    finished_at TIMESTAMP,
+    CONSTRAINT note_imports_status_check CHECK (status IN ('pending', 'running', 'done', 'failed'))
+);
+
+CREATE INDEX idx_note_imports_user ON note_imports (user_id, id);
+
+DO $$
+BEGIN
+    IF EXISTS (SELECT 1 FROM information_schema.tables
+              WHERE table_schema='public' AND table_name='users') THEN
+        ALTER TABLE note_imports ADD CONSTRAINT note_imports_user_fk FOREIGN KEY (user_id) REFERENCES users(id);
+    END IF;
+END $$;
+
+-- Note ids come from a pooled sequence: Hibernate reserves 50 ids per nextval, so
+-- inserts can be batched. Plain INSERTs relying on the column default stay correct,
+-- since every nextval still returns a value no other caller gets.
+DO $$
+BEGIN
+    IF EXISTS (SELECT 1 FROM information_schema.sequences
+              WHERE sequence_schema='public' AND sequence_name='notes_id_seq') THEN
+        ALTER SEQUENCE notes_id_seq INCREMENT BY 50;
+    END IF;
+END $$;
@@ -0,0 +1,43 @@
+-- Rollups of the notes table for the admin dashboard. They are updated in the same
+-- transaction as every note insert and status change, and reconciled against notes
+-- periodically, so the dashboard reads a few rows per user instead of scanning notes.
+
+-- Number of notes per owner and status
+CREATE TABLE note_stats (
+    user_id BIGINT NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    note_count BIGINT NOT NULL DEFAULT 0,
+    PRIMARY KEY (user_id, status)
+);
+
+-- Notes created, summarized and failed per hour
+CREATE TABLE note_throughput (
+    bucket_start TIMESTAMP PRIMARY KEY,
+    created BIGINT NOT NULL DEFAULT 0,
+    completed BIGINT NOT NULL DEFAULT 0,
+    failed BIGINT NOT NULL DEFAULT 0
+);
+
+DO $$
+BEGIN
+    IF EXISTS (SELECT 1 FROM information_schema.tables
+              WHERE table_schema='public' AND table_name='notes') THEN
+        INSERT INTO note_stats (user_id, status, note_count)
+        SELECT user_id, status, count(*) FROM notes
+        WHERE user_id IS NOT NULL
+        GROUP BY user_id, status;
+
+        -- Finished notes are not touched again, so updated_at is when they finished
+        INSERT INTO note_throughput (bucket_start, created, completed, failed)
+        SELECT bucket_start, sum(created), sum(completed), sum(failed)
+        FROM (
+            SELECT date_trunc('hour', created_at) AS bucket_start, 1 AS created, 0 AS completed, 0 AS failed
+            FROM notes
+            UNION ALL
+            SELECT date_trunc('hour', updated_at), 0, (status = 'done')::int, (status = 'failed')::int
+            FROM notes
+            WHERE status IN ('done', 'failed') AND updated_at IS NOT NULL
+        ) events
+        GROUP BY bucket_start;
+    END IF;
+END $$;
@@ -0,0 +1,81 @@
+-- Partitions notes by month of created_at, so old months can be detached and archived
+-- as a whole and queries bounded by date only touch the months they need.
+-- The rows are copied into the new table; the notes table is locked while this runs.
+-- Partitions are named notes_YYYY_MM; the application creates the months ahead
+-- (see NotePartitionMaintenance).
+
+DO $$
+DECLARE
+    first_month TIMESTAMP;
+    last_month TIMESTAMP;
+    month TIMESTAMP;
+BEGIN
+    IF EXISTS (SELECT 1 FROM information_schema.tables
+              WHERE table_schema='public' AND table_name='notes')
+       AND NOT EXISTS (SELECT 1 FROM pg_partitioned_table WHERE partrelid = to_regclass('notes')) THEN
+
+        -- A partitioned table's key must include the partition column, so notes(id) can
+        -- no longer be referenced; jobs of archived notes are removed by the archival job
+        ALTER TABLE IF EXISTS summary_jobs DROP CONSTRAINT IF EXISTS summary_jobs_note_id_fkey;
+
+        ALTER TABLE notes RENAME TO notes_unpartitioned;
+        ALTER TABLE notes_unpartitioned RENAME CONSTRAINT notes_pkey TO notes_unpartitioned_pkey;
+        DROP INDEX IF EXISTS idx_notes_user_created;
+        DROP INDEX IF EXISTS idx_notes_created;
+        DROP INDEX IF EXISTS idx_notes_terms_pending;
+        DROP INDEX IF EXISTS idx_notes_search;
+        ALTER SEQUENCE notes_id_seq OWNED BY NONE;
+
+        CREATE TABLE notes (
+            id BIGINT NOT NULL DEFAULT nextval('notes_id_seq'),
+            user_id BIGINT REFERENCES users(id),
+            title VARCHAR(255) NOT NULL DEFAULT 'Untitled',
+            content TEXT NOT NULL,
+            content_hash BYTEA REFERENCES note_blobs(hash),
+            body_vector tsvector,
+            summary TEXT,
+            status VARCHAR(20) NOT NULL,
+            terms_indexed BOOLEAN NOT NULL DEFAULT FALSE,
+            version BIGINT NOT NULL DEFAULT 0,
+            created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+            updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+            search_vector tsvector
+                GENERATED ALWAYS AS (
+                    setweight(to_tsvector('english', coalesce(title, '')), 'A') ||
+                    setweight(coalesce(body_vector, to_tsvector('english', coalesce(content, ''))), 'B') ||
+                    setweight(to_tsvector('english', coalesce(summary, '')), 'C')
+                ) STORED,
+            -- ids stay unique on their own: they all come from notes_id_seq
+            PRIMARY KEY (id, created_at)
+        ) PARTITION BY RANGE (created_at);
+        ALTER SEQUENCE notes_id_seq OWNED BY notes.id;
+
+        -- Every month from the oldest note through three months ahead
+        SELECT date_trunc('month', coalesce(min(created_at), now())) INTO first_month FROM notes_unpartitioned;
+        last_month := date_trunc('month', now()) + interval '3 months';
+        month := first_month;
+        WHILE month <= last_month LOOP
+            EXECUTE format('CREATE TABLE %I PARTITION OF notes FOR VALUES FROM (%L) TO (%L)',
+                'notes_' || to_char(month, 'YYYY_MM'), month, month + interval '1 month');
+            month := month + interval '1 month';
+        END LOOP;
+
+        INSERT INTO notes (id, user_id, title, content, content_hash, body_vector, summary, status,
+                           terms_indexed, version, created_at, updated_at)
+        SELECT id, user_id, title, content, content_hash, body_vector, summary, status,
+               terms_indexed, version, created_at, updated_at
+        FROM notes_unpartitioned;
+
+        DROP TABLE notes_unpartitioned;
+
+        -- Defined on the parent, created on every partition, present and future
+        CREATE INDEX idx_notes_user_created ON notes (user_id, created_at DESC, id DESC);
+        CREATE INDEX idx_notes_created ON notes (created_at DESC, id DESC);
+        CREATE INDEX idx_notes_terms_pending ON notes (id) WHERE NOT terms_indexed;
+        CREATE INDEX idx_notes_search ON notes USING GIN (search_vector);
+        -- Blob reference checks: the foreign key on deleting a blob and the archival job
+        CREATE INDEX idx_notes_content_hash ON notes (content_hash) WHERE content_hash IS NOT NULL;
+
+        ANALYZE notes;
+    END IF;
+END $$;
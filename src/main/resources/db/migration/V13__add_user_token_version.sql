@@ -0,0 +1,10 @@
+-- Version of a user's tokens, embedded in every JWT issued to them. Bumping it revokes
+-- all tokens issued before (see TokenVersions).
+
+DO $$
+BEGIN
+    IF EXISTS (SELECT 1 FROM information_schema.tables
+              WHERE table_schema='public' AND table_name='users') THEN
+        ALTER TABLE users ADD COLUMN IF NOT EXISTS token_version BIGINT NOT NULL DEFAULT 0;
+    END IF;
+END $$;
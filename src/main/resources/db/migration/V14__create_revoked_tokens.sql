@@ -0,0 +1,13 @@
+-- Tokens revoked before they expire, e.g. on logout, by their jti claim. Each instance
+-- mirrors the live rows into an in-memory Bloom filter and only looks here when the
+-- filter reports a possible match (see TokenRevocations). Rows are purged once the
+-- token has expired.
+CREATE TABLE revoked_tokens (
+    jti VARCHAR(64) PRIMARY KEY,
+    expires_at TIMESTAMP NOT NULL,
+    revoked_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX idx_revoked_tokens_expires ON revoked_tokens (expires_at);
+-- Instances pick up each other's revocations by revoked_at
+CREATE INDEX idx_revoked_tokens_revoked ON revoked_tokens (revoked_at);
@@ -0,0 +1,10 @@
+-- Per-user note creation buckets, shared by all instances when
+-- notes.rate-limit.store=postgres (see NoteAdmission). A bucket is the time, in epoch
+-- milliseconds of the database clock, at which it will be full again; rows past that
+-- time are equivalent to no row and are purged.
+CREATE TABLE note_rate_limits (
+    user_id BIGINT PRIMARY KEY,
+    full_at_ms BIGINT NOT NULL
+);
+
+CREATE INDEX idx_note_rate_limits_full_at ON note_rate_limits (full_at_ms);
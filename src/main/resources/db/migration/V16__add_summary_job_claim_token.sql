@@ -0,0 +1,11 @@
+-- Token of the current claim of a running job. Workers finish, fail or release a job only
+-- if it still carries the token of their claim, so a stalled run whose lease expired cannot
+-- touch the job once it was claimed again, even by the same node.
+
+DO $$
+BEGIN
+    IF EXISTS (SELECT 1 FROM information_schema.tables
+              WHERE table_schema='public' AND table_name='summary_jobs') THEN
+        ALTER TABLE summary_jobs ADD COLUMN IF NOT EXISTS claim_token VARCHAR(36);
+    END IF;
+END $$;
@@ -0,0 +1,26 @@
+-- Durable queue for AI summarization jobs.
+-- Workers claim rows with FOR UPDATE SKIP LOCKED and hold a time-bound lease,
+-- so queued work survives restarts and crashed workers can be recovered.
+
+CREATE TABLE summary_jobs (
+    id BIGSERIAL PRIMARY KEY,
+    note_id BIGINT NOT NULL REFERENCES notes(id) ON DELETE CASCADE,
+    status VARCHAR(20) NOT NULL DEFAULT 'pending',
+    attempts INT NOT NULL DEFAULT 0,
+    max_attempts INT NOT NULL DEFAULT 5,
+    run_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    locked_by VARCHAR(100),
+    lease_until TIMESTAMP,
+    last_error TEXT,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT summary_jobs_status_check CHECK (status IN ('pending', 'running', 'failed'))
+);
+
+-- Claim path: oldest due pending jobs first
+CREATE INDEX idx_summary_jobs_due ON summary_jobs (run_at, id) WHERE status = 'pending';
+
+-- Recovery sweep: running jobs ordered by lease expiry
+CREATE INDEX idx_summary_jobs_lease ON summary_jobs (lease_until) WHERE status = 'running';
+
+CREATE INDEX idx_summary_jobs_note ON summary_jobs (note_id);
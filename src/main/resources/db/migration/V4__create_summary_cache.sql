@@ -0,0 +1,13 @@
+-- Persistent tier of the summary cache.
+-- Keyed by a hash of the normalized note content plus the model parameters,
+-- so identical pastes reuse one remote summarization across restarts.
+
+CREATE TABLE summary_cache (
+    cache_key VARCHAR(128) PRIMARY KEY,
+    summary TEXT NOT NULL,
+    hit_count BIGINT NOT NULL DEFAULT 0,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    last_accessed_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX idx_summary_cache_last_accessed ON summary_cache (last_accessed_at);
@@ -0,0 +1,25 @@
+-- Document-frequency index for keyword extraction.
+-- Counts how many notes contain each term so keywords can be weighted by TF-IDF.
+-- Notes are folded in once, by a background sweep that flips notes.terms_indexed.
+
+CREATE TABLE term_document_frequency (
+    term VARCHAR(64) PRIMARY KEY,
+    document_count BIGINT NOT NULL
+);
+
+CREATE TABLE term_index_stats (
+    id SMALLINT PRIMARY KEY CHECK (id = 1),
+    document_count BIGINT NOT NULL
+);
+
+INSERT INTO term_index_stats (id, document_count) VALUES (1, 0);
+
+-- Existing notes start unindexed and are picked up by the sweep
+DO $$
+BEGIN
+    IF EXISTS (SELECT 1 FROM information_schema.tables
+              WHERE table_schema='public' AND table_name='notes') THEN
+        ALTER TABLE notes ADD COLUMN IF NOT EXISTS terms_indexed BOOLEAN NOT NULL DEFAULT FALSE;
+        CREATE INDEX IF NOT EXISTS idx_notes_terms_pending ON notes (id) WHERE NOT terms_indexed;
+    END IF;
+END $$;
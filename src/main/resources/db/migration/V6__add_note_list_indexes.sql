@@ -0,0 +1,16 @@
+-- Indexes for keyset pagination of the note lists.
+-- Pages seek on (created_at, id) newest first, per owner or across all notes,
+-- instead of scanning past OFFSET rows.
+
+DO $$
+BEGIN
+    IF EXISTS (SELECT 1 FROM information_schema.tables
+              WHERE table_schema='public' AND table_name='notes') THEN
+        -- The cursor is (created_at, id); a NULL created_at would drop out of every page
+        UPDATE notes SET created_at = COALESCE(updated_at, CURRENT_TIMESTAMP) WHERE created_at IS NULL;
+        ALTER TABLE notes ALTER COLUMN created_at SET NOT NULL;
+
+        CREATE INDEX IF NOT EXISTS idx_notes_user_created ON notes (user_id, created_at DESC, id DESC);
+        CREATE INDEX IF NOT EXISTS idx_notes_created ON notes (created_at DESC, id DESC);
+    END IF;
+END $$;
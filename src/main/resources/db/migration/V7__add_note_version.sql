@@ -0,0 +1,16 @@
+-- Optimistic version for notes. Status changes are conditional single-statement
+-- updates that check and bump it, so a stale worker cannot overwrite a newer result.
+
+DO $$
+BEGIN
+    IF EXISTS (SELECT 1 FROM information_schema.tables
+              WHERE table_schema='public' AND table_name='notes') THEN
+        ALTER TABLE notes ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+
+        -- Notes now go back to 'queued' between attempts and are only picked up from there;
+        -- release the ones a retry left in 'processing' so their pending jobs can run
+        UPDATE notes SET status = 'queued'
+        WHERE status = 'processing'
+          AND id IN (SELECT note_id FROM summary_jobs WHERE status = 'pending');
+    END IF;
+END $$;
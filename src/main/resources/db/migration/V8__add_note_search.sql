@@ -0,0 +1,18 @@
+-- Full-text search over notes. The document is kept in a stored generated column,
+-- so Postgres maintains it on every insert and update; title terms weigh most,
+-- then the content, then the summary.
+
+DO $$
+BEGIN
+    IF EXISTS (SELECT 1 FROM information_schema.tables
+              WHERE table_schema='public' AND table_name='notes') THEN
+        ALTER TABLE notes ADD COLUMN IF NOT EXISTS search_vector tsvector
+            GENERATED ALWAYS AS (
+                setweight(to_tsvector('english', coalesce(title, '')), 'A') ||
+                setweight(to_tsvector('english', coalesce(content, '')), 'B') ||
+                setweight(to_tsvector('english', coalesce(summary, '')), 'C')
+            ) STORED;
+
+        CREATE INDEX IF NOT EXISTS idx_notes_search ON notes USING GIN (search_vector);
+    END IF;
+END $$;
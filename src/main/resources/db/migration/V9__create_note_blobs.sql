@@ -0,0 +1,37 @@
+-- Content-addressed storage for large note bodies.
+-- Bodies above the inline limit are compressed by the application and stored once per
+-- distinct content, keyed by the SHA-256 of their UTF-8 bytes; notes.content keeps a
+-- short preview and notes.content_hash points at the full body.
+
+CREATE TABLE note_blobs (
+    hash BYTEA PRIMARY KEY,
+    codec VARCHAR(16) NOT NULL,
+    original_length INT NOT NULL,
+    data BYTEA NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Already compressed; store out of line without a second TOAST compression pass
+ALTER TABLE note_blobs ALTER COLUMN data SET STORAGE EXTERNAL;
+
+DO $$
+BEGIN
+    IF EXISTS (SELECT 1 FROM information_schema.tables
+              WHERE table_schema='public' AND table_name='notes') THEN
+        ALTER TABLE notes ADD COLUMN IF NOT EXISTS content_hash BYTEA REFERENCES note_blobs(hash);
+
+        -- Search terms of an out-of-line body, written by the application with the note;
+        -- search_vector is redefined to use it in place of the preview
+        ALTER TABLE notes ADD COLUMN IF NOT EXISTS body_vector tsvector;
+
+        DROP INDEX IF EXISTS idx_notes_search;
+        ALTER TABLE notes DROP COLUMN IF EXISTS search_vector;
+        ALTER TABLE notes ADD COLUMN search_vector tsvector
+            GENERATED ALWAYS AS (
+                setweight(to_tsvector('english', coalesce(title, '')), 'A') ||
+                setweight(coalesce(body_vector, to_tsvector('english', coalesce(content, ''))), 'B') ||
+                setweight(to_tsvector('english', coalesce(summary, '')), 'C')
+            ) STORED;
+        CREATE INDEX idx_notes_search ON notes USING GIN (search_vector);
+    END IF;
+END $$;
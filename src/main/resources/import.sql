@@ -0,0 +1,5 @@
+-- Run by Hibernate after it creates the schema (ddl-auto create/create-drop only).
+-- Adds the parts of the notes table the entity does not map; keep in sync with the migrations.
+ALTER TABLE notes ADD COLUMN body_vector tsvector;
+ALTER TABLE notes ADD COLUMN search_vector tsvector GENERATED ALWAYS AS (setweight(to_tsvector('english', coalesce(title, '')), 'A') || setweight(coalesce(body_vector, to_tsvector('english', coalesce(content, ''))), 'B') || setweight(to_tsvector('english', coalesce(summary, '')), 'C')) STORED;
+CREATE INDEX idx_notes_search ON notes USING GIN (search_vector);
@@ -0,0 +1,82 @@
+// Keeps the note cards on the page in sync with /api/v1/notes/events,
+// so status changes show up without reloading the page.
+(function () {
+    if (!window.EventSource) {
+        return;
+    }
+
+    const lastVersion = {};
+    const source = new EventSource('/api/v1/notes/events');
+
+    source.addEventListener('note-status', function (event) {
+        const update = JSON.parse(event.data);
+        // Events may arrive out of order; keep only the newest version of each note
+        if ((lastVersion[update.id] || 0) >= update.version) {
+            return;
+        }
+        lastVersion[update.id] = update.version;
+
+        const item = document.querySelector('.note-item[data-note-id="' + update.id + '"]');
+        if (item) {
+            applyUpdate(item, update);
+        }
+        // Also for notes not on this page, so page-wide counters can follow
+        document.dispatchEvent(new CustomEvent('note-status-updated', { detail: update }));
+    });
+
+    function applyUpdate(item, update) {
+        item.setAttribute('data-status', update.status);
+
+        const badge = item.querySelector('.status-badge');
+        if (badge) {
+            badge.className = 'status-badge status-' + update.status;
+            badge.textContent = update.status;
+        }
+
+        let button = item.querySelector('.summary-button');
+        // The summary itself is fetched when the button is clicked
+        if (update.status === 'done') {
+            if (!button) {
+                button = document.createElement('button');
+                button.type = 'button';
+                button.className = 'summary-button';
+                button.textContent = 'View AI Summary';
+                button.onclick = function () { showSummaryFromButton(this); };
+                const content = item.querySelector('.note-content');
+                content.insertAdjacentElement('afterend', button);
+            }
+            const title = item.querySelector('.note-title');
+            button.setAttribute('data-note-id', update.id);
+            button.setAttribute('data-note-title', title ? title.textContent : '');
+        } else if (button) {
+            button.remove();
+        }
+
+        if (item.closest('[data-status-messages]')) {
+            const existing = item.querySelector('.ai-status-message');
+            if (existing) {
+                existing.remove();
+            }
+            const message = statusMessage(update.status);
+            if (message) {
+                item.appendChild(message);
+            }
+        }
+    }
+
+    function statusMessage(status) {
+        const text = {
+            processing: '🤖 AI is generating summary...',
+            failed: '❌ AI summary generation failed. Please try again later.'
+        }[status];
+        if (!text) {
+            return null;
+        }
+        const message = document.createElement('div');
+        message.className = 'ai-status-message ai-status-' + status;
+        const italic = document.createElement('i');
+        italic.textContent = text;
+        message.appendChild(italic);
+        return message;
+    }
+})();
@@ -0,0 +1,97 @@
+// Full-text search over /api/v1/notes/search. Results replace nothing on the page;
+// they are listed in [data-search-results] below the search form.
+(function () {
+    const form = document.querySelector('form[data-note-search]');
+    const panel = document.querySelector('[data-search-results]');
+    if (!form || !panel) {
+        return;
+    }
+
+    let query = '';
+    let nextPage = 0;
+
+    form.addEventListener('submit', function (event) {
+        event.preventDefault();
+        query = form.elements.q.value.trim();
+        panel.innerHTML = '';
+        if (!query) {
+            panel.hidden = true;
+            return;
+        }
+        nextPage = 0;
+        panel.hidden = false;
+        load();
+    });
+
+    function load() {
+        const more = panel.querySelector('.search-more');
+        if (more) {
+            more.remove();
+        }
+        const params = new URLSearchParams({ q: query, page: nextPage });
+        fetch('/api/v1/notes/search?' + params, { headers: { 'Accept': 'application/json' } })
+            .then(function (response) {
+                if (!response.ok) {
+                    throw new Error('HTTP ' + response.status);
+                }
+                return response.json();
+            })
+            .then(render)
+            .catch(function () {
+                panel.appendChild(message('Search failed. Please try again.'));
+            });
+    }
+
+    function render(result) {
+        if (result.page === 0 && result.results.length === 0) {
+            panel.appendChild(message('No notes match "' + result.query + '".'));
+            return;
+        }
+        result.results.forEach(function (hit) {
+            panel.appendChild(resultItem(hit));
+        });
+        if (result.hasNext) {
+            nextPage = result.page + 1;
+            const more = document.createElement('button');
+            more.type = 'button';
+            more.className = 'search-more';
+            more.textContent = 'More results';
+            more.onclick = load;
+            panel.appendChild(more);
+        }
+    }
+
+    function resultItem(hit) {
+        const item = document.createElement('div');
+        item.className = 'search-result';
+
+        const title = document.createElement('div');
+        title.className = 'search-result-title';
+        title.textContent = hit.title;
+        const badge = document.createElement('span');
+        badge.className = 'status-badge status-' + hit.status;
+        badge.textContent = hit.status;
+        title.appendChild(badge);
+        if (panel.hasAttribute('data-show-owner')) {
+            const owner = document.createElement('span');
+            owner.className = 'user-badge';
+            owner.textContent = hit.ownerUsername;
+            title.appendChild(owner);
+        }
+        item.appendChild(title);
+
+        // The headline is escaped by the server; only <mark> tags are markup
+        const headline = document.createElement('div');
+        headline.className = 'search-result-headline';
+        headline.innerHTML = hit.headline;
+        item.appendChild(headline);
+        return item;
+    }
+
+    function message(text) {
+        const element = document.createElement('p');
+        element.className = 'search-message';
+        element.textContent = text;
+        return element;
+    }
+})();
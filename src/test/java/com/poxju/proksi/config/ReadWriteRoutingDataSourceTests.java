@@ -0,0 +1,115 @@
+package com.poxju.proksi.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import javax.sql.DataSource;
+
+class ReadWriteRoutingDataSourceTests {
+
+	private final DataSource dataSource = new LazyConnectionDataSourceProxy(
+			new ReadWriteRoutingDataSource(new NamedDataSource("primary"), new BehindReplica()));
+	private final DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+
+	@Test
+	void readOnlyTransactionsGoToTheReplica() {
+		TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+		readOnly.setReadOnly(true);
+
+		assertEquals("replica", readOnly.execute(status -> source()));
+	}
+
+	@Test
+	void writesGoToThePrimary() {
+		assertEquals("primary", new TransactionTemplate(transactionManager).execute(status -> source()));
+		assertEquals("primary", source());
+	}
+
+	@Test
+	void readOnlyReadInsideReadWriteTransactionStaysOnThePrimary() {
+		// A repository read, e.g. findById, joins the caller's read-write transaction, so a
+		// row the replica has not replayed yet is still found
+		TransactionTemplate repositoryRead = new TransactionTemplate(transactionManager);
+		repositoryRead.setReadOnly(true);
+
+		String source = new TransactionTemplate(transactionManager)
+				.execute(status -> repositoryRead.execute(inner -> source()));
+
+		assertEquals("primary", source);
+	}
+
+	private String source() {
+		Connection connection = DataSourceUtils.getConnection(dataSource);
+		try {
+			return connection.getCatalog();
+		} catch (SQLException e) {
+			throw new IllegalStateException(e);
+		} finally {
+			DataSourceUtils.releaseConnection(connection, dataSource);
+		}
+	}
+
+	/**
+	 * A replica that passed its lag check but has not replayed the latest commits.
+	 */
+	private static class BehindReplica extends ReadReplica {
+
+		private final DataSource replica = new NamedDataSource("replica");
+
+		BehindReplica() {
+			super(new HikariDataSource(), 5000);
+		}
+
+		@Override
+		public boolean isAvailable() {
+			return true;
+		}
+
+		@Override
+		public Connection getConnection() throws SQLException {
+			return replica.getConnection();
+		}
+	}
+
+	/**
+	 * Hands out connections whose catalog is the name of the data source.
+	 */
+	private static class NamedDataSource extends AbstractDataSource {
+
+		private final String name;
+
+		NamedDataSource(String name) {
+			this.name = name;
+		}
+
+		@Override
+		public Connection getConnection() {
+			return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { Connection.class },
+					(proxy, method, args) -> switch (method.getName()) {
+						case "getCatalog", "toString" -> name;
+						case "getAutoCommit" -> true;
+						case "isReadOnly", "isClosed", "isWrapperFor", "equals" -> false;
+						case "getTransactionIsolation" -> Connection.TRANSACTION_READ_COMMITTED;
+						case "hashCode" -> System.identityHashCode(proxy);
+						default -> null;
+					});
+		}
+
+		@Override
+		public Connection getConnection(String username, String password) {
+			return getConnection();
+		}
+	}
+}
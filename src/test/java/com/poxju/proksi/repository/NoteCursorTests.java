@@ -0,0 +1,46 @@
+package com.poxju.proksi.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.Optional;
+
+import org.junit.jupiter.api.Test;
+
+class NoteCursorTests {
+
+	@Test
+	void roundTripsThroughUrlSafeToken() {
+		NoteCursor cursor = new NoteCursor(LocalDateTime.of(2025, 3, 9, 14, 5, 7, 123_456_000), 9_007_199_254_740_993L);
+
+		String token = cursor.encode();
+
+		assertTrue(token.matches("[A-Za-z0-9_-]+"), token);
+		assertEquals(Optional.of(cursor), NoteCursor.decode(token));
+	}
+
+	@Test
+	void keepsWholeSecondsAndMidnight() {
+		NoteCursor cursor = new NoteCursor(LocalDateTime.of(2025, 1, 1, 0, 0), 1);
+
+		assertEquals(Optional.of(cursor), NoteCursor.decode(cursor.encode()));
+	}
+
+	@Test
+	void malformedTokensDecodeToEmpty() {
+		assertFalse(NoteCursor.decode(null).isPresent());
+		assertFalse(NoteCursor.decode("").isPresent());
+		assertFalse(NoteCursor.decode("not base64!").isPresent());
+		assertFalse(NoteCursor.decode(encode("no separator")).isPresent());
+		assertFalse(NoteCursor.decode(encode("2025-01-01T00:00|abc")).isPresent());
+		assertFalse(NoteCursor.decode(encode("yesterday|42")).isPresent());
+	}
+
+	private static String encode(String raw) {
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+	}
+}
@@ -0,0 +1,46 @@
+package com.poxju.proksi.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class ExtractiveSummarizerTests {
+
+	private final ExtractiveSummarizer summarizer = new ExtractiveSummarizer(new KeywordExtractor(DocumentFrequencies.EMPTY));
+
+	@Test
+	void keepsShortNotesAsTheyAre() {
+		assertEquals("📝 Short note: Buy milk and eggs", summarizer.summarize("  Buy   milk\nand eggs "));
+	}
+
+	@Test
+	void picksCentralSentencesInDocumentOrder() {
+		String text = """
+				The release planning meeting covered the database migration.
+				Lunch was pizza.
+				The database migration needs a rollback plan before release.
+				Someone mentioned the weather!
+				Migration testing on the staging database starts Monday.""";
+
+		String summary = summarizer.summarize(text);
+
+		assertEquals("📝 Summary: The release planning meeting covered the database migration. "
+				+ "The database migration needs a rollback plan before release. "
+				+ "[Key topics: database, migration, release]", summary);
+	}
+
+	@Test
+	void boundsSummaryOfLargeInput() {
+		StringBuilder text = new StringBuilder();
+		for (int i = 0; i < 50_000; i++) {
+			text.append("Sentence number ").append(i).append(" mentions throughput and latency. ");
+		}
+
+		String summary = summarizer.summarize(text);
+
+		assertTrue(summary.startsWith("📝 Summary: "), summary);
+		assertTrue(summary.length() < 800, summary);
+		assertTrue(summary.contains("[Key topics: "), summary);
+	}
+}
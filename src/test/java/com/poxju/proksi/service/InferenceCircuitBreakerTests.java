@@ -0,0 +1,61 @@
+package com.poxju.proksi.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+class InferenceCircuitBreakerTests {
+
+	private static final long FAST = Duration.ofMillis(100).toNanos();
+
+	private final AtomicLong clock = new AtomicLong();
+
+	private InferenceCircuitBreaker breaker() {
+		return new InferenceCircuitBreaker(10, 4, 0.5, 0.8, Duration.ofSeconds(5),
+				Duration.ofSeconds(30), 1, clock::get);
+	}
+
+	@Test
+	void opensOnFailureRateAndRejectsUntilOpenTimeElapses() {
+		InferenceCircuitBreaker breaker = breaker();
+		breaker.onResult(true, FAST);
+		breaker.onResult(true, FAST);
+		breaker.onResult(false, FAST);
+		assertEquals(InferenceCircuitBreaker.State.CLOSED, breaker.getState());
+
+		breaker.onResult(false, FAST);
+		assertEquals(InferenceCircuitBreaker.State.OPEN, breaker.getState());
+		assertFalse(breaker.tryAcquirePermission());
+		assertEquals(Duration.ofSeconds(30), breaker.remainingOpenTime());
+
+		clock.addAndGet(Duration.ofSeconds(30).toNanos());
+		assertTrue(breaker.tryAcquirePermission());
+		assertEquals(InferenceCircuitBreaker.State.HALF_OPEN, breaker.getState());
+		assertFalse(breaker.tryAcquirePermission());
+	}
+
+	@Test
+	void probeDecidesWhetherToCloseOrReopen() {
+		InferenceCircuitBreaker breaker = breaker();
+		for (int i = 0; i < 4; i++) {
+			breaker.onResult(true, Duration.ofSeconds(6).toNanos());
+		}
+		assertEquals(InferenceCircuitBreaker.State.OPEN, breaker.getState());
+
+		clock.addAndGet(Duration.ofSeconds(30).toNanos());
+		assertTrue(breaker.tryAcquirePermission());
+		breaker.onResult(false, FAST);
+		assertEquals(InferenceCircuitBreaker.State.OPEN, breaker.getState());
+
+		clock.addAndGet(Duration.ofSeconds(30).toNanos());
+		assertTrue(breaker.tryAcquirePermission());
+		breaker.onResult(true, FAST);
+		assertEquals(InferenceCircuitBreaker.State.CLOSED, breaker.getState());
+		assertTrue(breaker.tryAcquirePermission());
+	}
+}
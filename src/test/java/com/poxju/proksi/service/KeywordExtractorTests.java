@@ -0,0 +1,44 @@
+package com.poxju.proksi.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+class KeywordExtractorTests {
+
+	@Test
+	void topKReturnsBestFirstWithTiesToLowerIndex() {
+		double[] scores = { 3, 9, 1, 9, 5, Double.NaN, 7 };
+
+		assertArrayEquals(new int[] { 1, 3, 6 }, KeywordExtractor.topK(scores.length, 3, i -> scores[i]));
+		assertArrayEquals(new int[] { 1, 3, 6, 4, 0, 2 }, KeywordExtractor.topK(scores.length, 10, i -> scores[i]));
+	}
+
+	@Test
+	void corpusWideTermsAreOutrankedByDistinctiveOnes() {
+		String text = "Meeting notes. Meeting agenda covered the meeting budget. Kubernetes upgrade and kubernetes costs.";
+		TermCounter terms = KeywordExtractor.countTerms(text);
+		boolean[] excluded = new boolean[terms.size()];
+
+		assertEquals(List.of("meeting", "kubernetes"),
+				new KeywordExtractor(DocumentFrequencies.EMPTY).extract(terms, excluded, 2));
+
+		DocumentFrequencies corpus = new DocumentFrequencies() {
+			@Override
+			public long totalDocuments() {
+				return 1000;
+			}
+
+			@Override
+			public Map<String, Long> documentCounts(Collection<String> candidates) {
+				return Map.of("meeting", 900L, "notes", 950L, "kubernetes", 3L);
+			}
+		};
+		assertEquals(List.of("kubernetes", "agenda"), new KeywordExtractor(corpus).extract(terms, excluded, 2));
+	}
+}
@@ -0,0 +1,78 @@
+package com.poxju.proksi.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+class MapReduceSummarizerTests {
+
+	@Test
+	void chunksOnParagraphBoundariesWithinLimit() {
+		String paragraph = "Sentence one is here. Sentence two follows it. ".repeat(3).strip();
+		String text = String.join("\n\n", paragraph, paragraph, paragraph, paragraph, paragraph);
+
+		List<String> chunks = new TextChunker(300).split(text);
+
+		assertTrue(chunks.size() > 1);
+		for (String chunk : chunks) {
+			assertTrue(chunk.length() <= 300, chunk);
+			assertTrue(chunk.startsWith("Sentence one"), chunk);
+			assertTrue(chunk.endsWith("."), chunk);
+		}
+		assertEquals(5 * paragraph.length(), chunks.stream()
+				.flatMap(chunk -> List.of(chunk.split("\n\n")).stream())
+				.mapToInt(String::length)
+				.sum());
+	}
+
+	@Test
+	void reducesChunkSummariesUntilOneInputRemains() throws Exception {
+		List<String> calls = new CopyOnWriteArrayList<>();
+		MapReduceSummarizer summarizer = new MapReduceSummarizer(new TextChunker(200),
+				input -> {
+					calls.add(input);
+					return CompletableFuture.supplyAsync(() -> "s" + calls.size() + " " + "x".repeat(60));
+				},
+				4, 3);
+		String text = "Word soup sentence that goes on. ".repeat(60);
+
+		String summary = summarizer.summarize(text).get(5, TimeUnit.SECONDS);
+
+		assertTrue(summary.startsWith("s"));
+		// Leaf chunks, at least one reduce level, and a final pass over the reduced summaries
+		int leaves = new TextChunker(200).split(text).size();
+		assertTrue(calls.size() > leaves + 1, "calls: " + calls.size());
+		assertTrue(calls.stream().allMatch(input -> input.length() <= 200));
+	}
+
+	@Test
+	void lastPassAtMaxDepthCoversEveryChunk() throws Exception {
+		List<String> calls = new CopyOnWriteArrayList<>();
+		// A model that does not shrink its input at all
+		MapReduceSummarizer summarizer = new MapReduceSummarizer(new TextChunker(200),
+				input -> {
+					calls.add(input);
+					return CompletableFuture.completedFuture(input);
+				},
+				4, 1);
+		StringBuilder text = new StringBuilder();
+		for (int i = 0; i < 8; i++) {
+			text.append("Paragraph ").append(i).append(" starts here and then rambles on. ".repeat(4)).append("\n\n");
+		}
+
+		String summary = summarizer.summarize(text.toString()).get(5, TimeUnit.SECONDS);
+
+		assertTrue(summary.length() <= 200, summary);
+		String lastInput = calls.get(calls.size() - 1);
+		assertEquals(summary, lastInput);
+		// Both ends of the text make it into the last pass
+		assertTrue(lastInput.contains("Paragraph 0"), lastInput);
+		assertTrue(lastInput.contains("Paragraph 7"), lastInput);
+	}
+}
@@ -0,0 +1,131 @@
+package com.poxju.proksi.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.junit.jupiter.api.Test;
+
+import com.poxju.proksi.model.Note;
+import com.poxju.proksi.repository.NoteBlobRepository;
+
+class NoteContentStoreTests {
+
+	private final InMemoryBlobs blobs = new InMemoryBlobs();
+	private final NoteContentStore store = new NoteContentStore(blobs, null, 4096, 100);
+
+	@Test
+	void smallBodiesStayInline() {
+		Note note = new Note();
+		store.assign(note, "A short note.");
+		note.setId(1L);
+		store.afterInsert(note, "A short note.");
+
+		assertEquals("A short note.", note.getContent());
+		assertNull(note.getContentHash());
+		assertTrue(blobs.stored.isEmpty());
+		assertTrue(blobs.indexed.isEmpty());
+		assertEquals("A short note.", store.read(note));
+	}
+
+	@Test
+	void largeBodiesRoundTripThroughCompressedBlob() {
+		String body = "Größere Notiz mit Umlauten, € und 😀 Emoji. ".repeat(500);
+		Note note = new Note();
+		store.assign(note, body);
+		note.setId(7L);
+		store.afterInsert(note, body);
+
+		assertNotNull(note.getContentHash());
+		assertEquals(NoteContentStore.PREVIEW_CHARS, note.getContent().length());
+		assertTrue(body.startsWith(note.getContent()));
+		Blob blob = blobs.stored.get(HexFormat.of().formatHex(note.getContentHash()));
+		assertEquals(body.getBytes(StandardCharsets.UTF_8).length, blob.originalLength());
+		assertTrue(blob.data().length < blob.originalLength() / 4, "compressed to " + blob.data().length);
+		// The search index gets the full body, not the preview
+		assertEquals(List.of(body), blobs.indexed);
+
+		assertEquals(body, store.read(note));
+	}
+
+	@Test
+	void identicalBodiesShareOneBlob() {
+		String body = "x".repeat(10_000);
+		Note first = new Note();
+		Note second = new Note();
+		store.assign(first, body);
+		store.assign(second, body);
+
+		assertArrayEquals(first.getContentHash(), second.getContentHash());
+		assertEquals(1, blobs.stored.size());
+	}
+
+	@Test
+	void previewDoesNotSplitSurrogatePairs() {
+		String body = "a".repeat(NoteContentStore.PREVIEW_CHARS - 1) + "😀" + "b".repeat(10_000);
+		Note note = new Note();
+		store.assign(note, body);
+
+		assertEquals(NoteContentStore.PREVIEW_CHARS - 1, note.getContent().length());
+		assertEquals(body, store.read(note));
+	}
+
+	@Test
+	void missingBlobIsAnError() {
+		String body = "y".repeat(10_000);
+		Note note = new Note();
+		store.assign(note, body);
+		blobs.stored.clear();
+
+		IllegalStateException error = assertThrows(IllegalStateException.class, () -> store.read(note));
+		assertTrue(error.getMessage().contains(HexFormat.of().formatHex(note.getContentHash())), error.getMessage());
+	}
+
+	private record Blob(String codec, int originalLength, byte[] data) {}
+
+	private static final class InMemoryBlobs extends NoteBlobRepository {
+
+		final Map<String, Blob> stored = new HashMap<>();
+		final List<String> indexed = new ArrayList<>();
+
+		InMemoryBlobs() {
+			super(null);
+		}
+
+		@Override
+		public void insertIfAbsent(byte[] hash, String codec, int originalLength, byte[] data) {
+			stored.putIfAbsent(HexFormat.of().formatHex(hash), new Blob(codec, originalLength, data));
+		}
+
+		@Override
+		public <T> Optional<T> read(byte[] hash, BlobReader<T> reader) {
+			Blob blob = stored.get(HexFormat.of().formatHex(hash));
+			if (blob == null) {
+				return Optional.empty();
+			}
+			try {
+				return Optional.of(reader.read(blob.codec(), blob.originalLength(), new ByteArrayInputStream(blob.data())));
+			} catch (IOException e) {
+				throw new IllegalStateException(e);
+			}
+		}
+
+		@Override
+		public void updateBodyVector(long noteId, String body) {
+			indexed.add(body);
+		}
+	}
+}
@@ -0,0 +1,97 @@
+package com.poxju.proksi.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+
+import org.junit.jupiter.api.Test;
+
+import com.poxju.proksi.service.NoteImportReader.Row;
+
+class NoteImportReaderTests {
+
+	@Test
+	void csvFieldsMayContainQuotesCommasAndLineBreaks() throws IOException {
+		String csv = "\uFEFFid,Content,title\r\n"
+				+ "1,\"Line one, with comma\nline \"\"two\"\"\",First\r\n"
+				+ "\r\n"
+				+ "2,plain,\n"
+				+ "3\n";
+
+		try (NoteImportReader reader = NoteImportReader.open(NoteImportReader.CSV, new BufferedReader(new StringReader(csv)), 1000)) {
+			Row first = reader.next();
+			assertEquals("First", first.title());
+			assertEquals("Line one, with comma\nline \"two\"", first.content());
+
+			Row second = reader.next();
+			assertEquals("plain", second.content());
+			assertEquals("", second.title());
+
+			assertTrue(reader.next().isRejected());
+			assertNull(reader.next());
+		}
+	}
+
+	@Test
+	void malformedNdjsonLinesAreRejectedAndReadingContinues() throws IOException {
+		String ndjson = """
+				{"title": "A", "content": "first"}
+				{"title": "B", "content":
+
+				[1, 2]
+				{"content": "last"}
+				""";
+
+		try (NoteImportReader reader = NoteImportReader.open(NoteImportReader.NDJSON, new BufferedReader(new StringReader(ndjson)), 1000)) {
+			assertEquals("first", reader.next().content());
+
+			Row truncated = reader.next();
+			assertTrue(truncated.isRejected());
+			assertEquals(2, truncated.number());
+
+			assertTrue(reader.next().isRejected());
+
+			Row last = reader.next();
+			assertEquals(5, last.number());
+			assertNull(last.title());
+			assertEquals("last", last.content());
+			assertNull(reader.next());
+		}
+	}
+
+	@Test
+	void overlongRecordsAreRejectedWithoutBufferingThem() throws IOException {
+		String longText = "x".repeat(100);
+		String ndjson = "{\"content\": \"" + longText + "\"}\n"
+				+ "{\"content\": \"short\"}\n";
+
+		try (NoteImportReader reader = NoteImportReader.open(NoteImportReader.NDJSON, new BufferedReader(new StringReader(ndjson)), 50)) {
+			Row overlong = reader.next();
+			assertTrue(overlong.isRejected());
+			assertEquals(1, overlong.number());
+			assertEquals("short", reader.next().content());
+			assertNull(reader.next());
+		}
+
+		String csv = "title,content\n"
+				+ "A," + longText + "\n"
+				+ "B,short\n"
+				+ "C,\"stray quote running to the end\n" + (longText + "\n").repeat(10);
+
+		try (NoteImportReader reader = NoteImportReader.open(NoteImportReader.CSV, new BufferedReader(new StringReader(csv)), 50)) {
+			Row overlong = reader.next();
+			assertTrue(overlong.isRejected());
+			assertTrue(overlong.error().contains("longer than 50"));
+			assertEquals("short", reader.next().content());
+
+			Row unterminated = reader.next();
+			assertTrue(unterminated.isRejected());
+			assertTrue(unterminated.error().contains("longer than 50"));
+			assertNull(reader.next());
+		}
+	}
+}
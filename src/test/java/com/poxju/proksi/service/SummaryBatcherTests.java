@@ -0,0 +1,90 @@
+package com.poxju.proksi.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+class SummaryBatcherTests {
+
+	@Test
+	void groupsRequestsIntoOneBatchCall() throws Exception {
+		List<List<String>> batchCalls = new CopyOnWriteArrayList<>();
+		SummaryBatcher batcher = new SummaryBatcher(4, 200,
+				inputs -> {
+					batchCalls.add(inputs);
+					return CompletableFuture.completedFuture(inputs.stream().map(input -> "summary of " + input).toList());
+				},
+				input -> CompletableFuture.completedFuture("single " + input));
+		try {
+			List<CompletableFuture<String>> results = new ArrayList<>();
+			for (int i = 0; i < 4; i++) {
+				results.add(batcher.submit("note " + i));
+			}
+			for (int i = 0; i < 4; i++) {
+				assertEquals("summary of note " + i, results.get(i).get(5, TimeUnit.SECONDS));
+			}
+			assertEquals(1, batchCalls.size());
+			assertEquals(4, batchCalls.get(0).size());
+		} finally {
+			batcher.shutdown();
+		}
+	}
+
+	@Test
+	void retriesFailedBatchItemsIndividually() throws Exception {
+		List<String> singleCalls = new CopyOnWriteArrayList<>();
+		SummaryBatcher batcher = new SummaryBatcher(3, 200,
+				inputs -> {
+					List<String> results = new ArrayList<>();
+					for (String input : inputs) {
+						results.add(input.equals("b") ? null : input.toUpperCase());
+					}
+					return CompletableFuture.completedFuture(results);
+				},
+				input -> {
+					singleCalls.add(input);
+					return CompletableFuture.completedFuture("retried " + input);
+				});
+		try {
+			CompletableFuture<String> a = batcher.submit("a");
+			CompletableFuture<String> b = batcher.submit("b");
+			CompletableFuture<String> c = batcher.submit("c");
+
+			assertEquals("A", a.get(5, TimeUnit.SECONDS));
+			assertEquals("retried b", b.get(5, TimeUnit.SECONDS));
+			assertEquals("C", c.get(5, TimeUnit.SECONDS));
+			assertEquals(List.of("b"), singleCalls);
+		} finally {
+			batcher.shutdown();
+		}
+	}
+
+	@Test
+	void failsEveryItemWhenTheWholeBatchFails() throws Exception {
+		SummaryBatcher batcher = new SummaryBatcher(2, 200,
+				inputs -> CompletableFuture.failedFuture(new InferenceException("upstream down")),
+				input -> CompletableFuture.completedFuture("unused"));
+		try {
+			CompletableFuture<String> first = batcher.submit("x");
+			CompletableFuture<String> second = batcher.submit("y");
+
+			ExecutionException firstError = assertThrows(
+					ExecutionException.class, () -> first.get(5, TimeUnit.SECONDS));
+			ExecutionException secondError = assertThrows(
+					ExecutionException.class, () -> second.get(5, TimeUnit.SECONDS));
+			assertTrue(firstError.getCause() instanceof InferenceException);
+			assertTrue(secondError.getCause() instanceof InferenceException);
+		} finally {
+			batcher.shutdown();
+		}
+	}
+}
@@ -0,0 +1,71 @@
+package com.poxju.proksi.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+class TokenBucketsTests {
+
+	private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+	@Test
+	void allowsBurstThenWaitsForRefill() {
+		TokenBuckets buckets = new TokenBuckets(3, 60, 100);
+		long now = 1_000 * SECOND;
+		for (int i = 0; i < 3; i++) {
+			assertEquals(0, buckets.tryAcquire("alice", now));
+		}
+		assertEquals(1000, buckets.tryAcquire("alice", now));
+		assertEquals(500, buckets.tryAcquire("alice", now + SECOND / 2));
+		assertEquals(0, buckets.tryAcquire("alice", now + SECOND));
+		// Other keys have their own bucket
+		assertEquals(0, buckets.tryAcquire("bob", now));
+	}
+
+	@Test
+	void refillsNoMoreThanCapacity() {
+		TokenBuckets buckets = new TokenBuckets(2, 60, 100);
+		long now = 1_000 * SECOND;
+		assertEquals(0, buckets.tryAcquire("alice", now));
+		now += 60 * SECOND;
+		assertEquals(0, buckets.tryAcquire("alice", now));
+		assertEquals(0, buckets.tryAcquire("alice", now));
+		assertTrue(buckets.tryAcquire("alice", now) > 0);
+	}
+
+	@Test
+	void concurrentRequestsTakeEachTokenOnce() throws Exception {
+		TokenBuckets buckets = new TokenBuckets(1000, 1, 100);
+		long now = System.nanoTime();
+		ExecutorService pool = Executors.newFixedThreadPool(8);
+		try {
+			List<Future<Integer>> results = new ArrayList<>();
+			for (int t = 0; t < 8; t++) {
+				results.add(pool.submit(() -> {
+					int admitted = 0;
+					for (int i = 0; i < 500; i++) {
+						if (buckets.tryAcquire("alice", now) == 0) {
+							admitted++;
+						}
+					}
+					return admitted;
+				}));
+			}
+			int admitted = 0;
+			for (Future<Integer> result : results) {
+				admitted += result.get();
+			}
+			assertEquals(1000, admitted);
+		} finally {
+			pool.shutdown();
+		}
+	}
+}